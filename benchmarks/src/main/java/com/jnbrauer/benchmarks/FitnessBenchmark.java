@@ -0,0 +1,118 @@
+package com.jnbrauer.benchmarks;
+
+import com.jnbrauer.Scheduler;
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+import com.jnbrauer.fitness.FitnessBreakdown;
+import com.jnbrauer.fitness.FitnessEvaluator;
+import com.jnbrauer.fitness.FitnessKernel;
+import com.jnbrauer.fitness.OverlapMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the fitness function: Scheduler.fitness() as called by users, and full and incremental evaluation as done
+ * by Scheduler.run().
+ *
+ * @author Jude Brauer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// The incubator module is added so that the VECTOR kernel can be measured
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class FitnessBenchmark {
+    // Number of different schedules cycled through so results do not depend on a single schedule
+    private static final int N_SCHEDULES = 16;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int nTasks;
+
+    @Param({"0", "3", "12"})
+    public int reservationsPerDay;
+
+    @Param({"5", "30", "90"})
+    public int horizonDays;
+
+    @Param({"SWEEP", "PAIRWISE"})
+    public OverlapMethod overlapMethod;
+
+    @Param({"SCALAR", "VECTOR"})
+    public String kernel;
+
+    private Scheduler scheduler;
+    private FitnessEvaluator evaluator;
+    private int[][] schedules;
+    private int[][] moved;
+    private FitnessBreakdown[] breakdowns;
+    private FitnessBreakdown result;
+    private int next;
+
+    @Setup
+    public void setup() {
+        int maxTime = horizonDays * Problems.DAY;
+        Task[] tasks = Problems.tasks(nTasks, 1);
+        ReservedTime[] reservedTimes = Problems.reservedTimes(reservationsPerDay, 2);
+
+        scheduler = new Scheduler(maxTime, tasks, reservedTimes);
+        scheduler.setOverlapMethod(overlapMethod);
+        FitnessKernel fitnessKernel = kernel.equals("VECTOR") ? FitnessKernel.vector() : FitnessKernel.SCALAR;
+        scheduler.setFitnessKernel(fitnessKernel);
+
+        int[] durations = Arrays.stream(tasks).mapToInt(Task::getDuration).toArray();
+        int[] priorities = Arrays.stream(tasks).mapToInt(Task::getPriority).toArray();
+        evaluator = new FitnessEvaluator(durations, priorities,
+                OverlapIndexType.PERIODIC.build(reservedTimes, maxTime), overlapMethod, fitnessKernel);
+
+        schedules = Problems.schedules(N_SCHEDULES, nTasks, maxTime, 3);
+        breakdowns = new FitnessBreakdown[N_SCHEDULES];
+        moved = new int[N_SCHEDULES][];
+        for (int i = 0; i < N_SCHEDULES; i++) {
+            breakdowns[i] = new FitnessBreakdown(nTasks);
+            evaluator.evaluate(schedules[i], breakdowns[i]);
+
+            // Same schedule with a single task moved, like a child with one mutation
+            moved[i] = schedules[i].clone();
+            moved[i][i % nTasks] = (moved[i][i % nTasks] + 60) % maxTime;
+        }
+        result = new FitnessBreakdown(nTasks);
+    }
+
+    @Benchmark
+    public int schedulerFitness() {
+        return scheduler.fitness(schedules[nextIndex()]);
+    }
+
+    @Benchmark
+    public FitnessBreakdown fullEvaluation() {
+        evaluator.evaluate(schedules[nextIndex()], result);
+        return result;
+    }
+
+    @Benchmark
+    public FitnessBreakdown singleTaskUpdate() {
+        int i = nextIndex();
+        evaluator.update(moved[i], 0, schedules[i], 0, breakdowns[i], result);
+        return result;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % N_SCHEDULES;
+        return next;
+    }
+}
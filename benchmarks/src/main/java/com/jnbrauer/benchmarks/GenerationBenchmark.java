@@ -0,0 +1,62 @@
+package com.jnbrauer.benchmarks;
+
+import com.jnbrauer.ScheduleResult;
+import com.jnbrauer.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks whole generations of Scheduler.run(): evaluation, selection, crossover and mutation. Reported times are
+ * per generation, including a share of the run's setup.
+ *
+ * @author Jude Brauer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+    // Number of generations per run
+    private static final int N_GENERATIONS = 20;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int nTasks;
+
+    @Param({"3", "12"})
+    public int reservationsPerDay;
+
+    @Param({"5", "30"})
+    public int horizonDays;
+
+    @Param({"1", "4"})
+    public int nThreads;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setup() {
+        scheduler = new Scheduler(horizonDays * Problems.DAY, Problems.tasks(nTasks, 1),
+                Problems.reservedTimes(reservationsPerDay, 2), 12, nThreads);
+        scheduler.setLogFile(null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_GENERATIONS)
+    public ScheduleResult generation() {
+        return scheduler.run(N_GENERATIONS);
+    }
+}
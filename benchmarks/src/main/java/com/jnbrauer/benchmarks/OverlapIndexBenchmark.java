@@ -0,0 +1,80 @@
+package com.jnbrauer.benchmarks;
+
+import com.jnbrauer.data.OverlapIndex;
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building reserved time indexes and querying them for the overlap of a task.
+ *
+ * @author Jude Brauer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlapIndexBenchmark {
+    // Number of queries per benchmark invocation
+    private static final int N_QUERIES = 1024;
+
+    @Param({"INTERVAL_TREE", "MUTABLE_INTERVAL_TREE", "PERIODIC", "OCCUPANCY"})
+    public OverlapIndexType indexType;
+
+    @Param({"3", "12", "48"})
+    public int reservationsPerDay;
+
+    @Param({"5", "30", "90"})
+    public int horizonDays;
+
+    private ReservedTime[] reservedTimes;
+    private int maxTime;
+    private OverlapIndex index;
+    private int[] starts;
+    private int[] ends;
+
+    @Setup
+    public void setup() {
+        maxTime = horizonDays * Problems.DAY;
+        reservedTimes = Problems.reservedTimes(reservationsPerDay, 2);
+        index = indexType.build(reservedTimes, maxTime);
+
+        Random random = new Random(3);
+        starts = new int[N_QUERIES];
+        ends = new int[N_QUERIES];
+        for (int i = 0; i < N_QUERIES; i++) {
+            starts[i] = random.nextInt(maxTime);
+            ends[i] = starts[i] + 30 + random.nextInt(271);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public int getOverlap() {
+        int total = 0;
+        for (int i = 0; i < N_QUERIES; i++) total += index.getOverlap(starts[i], ends[i]);
+        return total;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public OverlapIndex build() {
+        return indexType.build(reservedTimes, maxTime);
+    }
+}
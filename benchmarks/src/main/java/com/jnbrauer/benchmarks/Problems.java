@@ -0,0 +1,66 @@
+package com.jnbrauer.benchmarks;
+
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+
+import java.util.Random;
+
+/**
+ * Generates random scheduling problems for the benchmarks. The same parameters always give the same problem.
+ *
+ * @author Jude Brauer
+ */
+final class Problems {
+    // Minutes in a day
+    static final int DAY = 24 * 60;
+
+    private Problems() {
+    }
+
+    /**
+     * Generate tasks with priorities in [1, 7] and durations in [30, 300] minutes.
+     * @param nTasks number of tasks
+     * @param seed random seed
+     * @return tasks
+     */
+    static Task[] tasks(int nTasks, long seed) {
+        Random random = new Random(seed);
+        Task[] tasks = new Task[nTasks];
+        for (int i = 0; i < nTasks; i++) {
+            tasks[i] = new Task("Task " + i, 1 + random.nextInt(7), 30 + random.nextInt(271));
+        }
+        return tasks;
+    }
+
+    /**
+     * Generate daily reserved times with durations in [30, 120] minutes.
+     * @param perDay number of reserved times each day
+     * @param seed random seed
+     * @return reserved times
+     */
+    static ReservedTime[] reservedTimes(int perDay, long seed) {
+        Random random = new Random(seed);
+        ReservedTime[] reservedTimes = new ReservedTime[perDay];
+        for (int i = 0; i < perDay; i++) {
+            reservedTimes[i] = new ReservedTime("Reserved " + i, random.nextInt(DAY), 30 + random.nextInt(91), DAY);
+        }
+        return reservedTimes;
+    }
+
+    /**
+     * Generate random schedules.
+     * @param n number of schedules
+     * @param nTasks number of tasks in each schedule
+     * @param maxTime highest start time
+     * @param seed random seed
+     * @return schedules
+     */
+    static int[][] schedules(int n, int nTasks, int maxTime, long seed) {
+        Random random = new Random(seed);
+        int[][] schedules = new int[n][nTasks];
+        for (int[] schedule : schedules) {
+            for (int i = 0; i < nTasks; i++) schedule[i] = random.nextInt(maxTime);
+        }
+        return schedules;
+    }
+}
@@ -0,0 +1,105 @@
+package com.jnbrauer.fitness;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Fitness kernel comparing a task with as many other tasks at once as fit into the preferred vector size of the CPU,
+ * using the JDK Vector API. Tasks left over after the last full vector are compared by the scalar kernel.
+ *
+ * Integer sums wrap around the same way in any order, so the results are exactly the same as those of the scalar
+ * kernel, including overflow.
+ *
+ * Requires the jdk.incubator.vector module both to compile and to run; FitnessKernel.vector() only loads this class if
+ * it is available.
+ *
+ * @author Jude Brauer
+ */
+final class VectorFitnessKernel implements FitnessKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // Lane indices 0, 1, 2, ...
+    private static final IntVector LANES = IntVector.zero(SPECIES).addIndex(1);
+
+    @Override
+    public String getName() {
+        return "vector " + SPECIES.vectorBitSize() + "-bit";
+    }
+
+    @Override
+    public int pairwiseOverlap(int[] starts, int[] ends, int n) {
+        int overlap = 0;
+
+        for (int i = 0; i < n - 1; i++) {
+            IntVector start = IntVector.broadcast(SPECIES, starts[i]);
+            IntVector end = IntVector.broadcast(SPECIES, ends[i]);
+            IntVector sum = IntVector.zero(SPECIES);
+
+            int j = i + 1;
+            for (int upper = j + SPECIES.loopBound(n - j); j < upper; j += SPECIES.length()) {
+                IntVector otherStarts = IntVector.fromArray(SPECIES, starts, j);
+                IntVector otherEnds = IntVector.fromArray(SPECIES, ends, j);
+                sum = sum.add(end.min(otherEnds).sub(start.max(otherStarts)).max(0));
+            }
+            overlap += sum.reduceLanes(VectorOperators.ADD);
+
+            for (; j < n; j++) overlap += Math.max(0, Math.min(ends[i], ends[j]) - Math.max(starts[i], starts[j]));
+        }
+
+        return overlap;
+    }
+
+    @Override
+    public void rowDelta(int k, int[] genes, int offset, int[] base, int baseOffset, int[] durations, int[] priorities,
+                         boolean[] changed, int n, int[] totals) {
+        IntVector newStart = IntVector.broadcast(SPECIES, genes[offset + k]);
+        IntVector newEnd = newStart.add(durations[k]);
+        IntVector oldStart = IntVector.broadcast(SPECIES, base[baseOffset + k]);
+        IntVector oldEnd = oldStart.add(durations[k]);
+        IntVector priority = IntVector.broadcast(SPECIES, priorities[k]);
+
+        IntVector taskOverlap = IntVector.zero(SPECIES);
+        IntVector priorityInversions = IntVector.zero(SPECIES);
+
+        int j = 0;
+        for (int upper = SPECIES.loopBound(n); j < upper; j += SPECIES.length()) {
+            // Pairs of two changed tasks are only visited from the task with the lower index
+            IntVector index = LANES.add(j);
+            VectorMask<Integer> skipped = index.eq(k)
+                    .or(VectorMask.fromArray(SPECIES, changed, j).and(index.lt(k)));
+            VectorMask<Integer> visited = skipped.not();
+
+            IntVector newOther = IntVector.fromArray(SPECIES, genes, offset + j);
+            IntVector oldOther = IntVector.fromArray(SPECIES, base, baseOffset + j);
+            IntVector duration = IntVector.fromArray(SPECIES, durations, j);
+            IntVector otherPriority = IntVector.fromArray(SPECIES, priorities, j);
+
+            // Remove the terms of the pair in the base schedule and add the terms in the new schedule
+            IntVector overlapChange = overlap(newStart, newEnd, newOther, newOther.add(duration))
+                    .sub(overlap(oldStart, oldEnd, oldOther, oldOther.add(duration)));
+            taskOverlap = taskOverlap.add(overlapChange, visited);
+
+            IntVector inversionChange = inversion(newStart, newOther, priority, otherPriority)
+                    .sub(inversion(oldStart, oldOther, priority, otherPriority));
+            priorityInversions = priorityInversions.add(inversionChange, visited);
+        }
+
+        totals[0] += taskOverlap.reduceLanes(VectorOperators.ADD);
+        totals[1] += priorityInversions.reduceLanes(VectorOperators.ADD);
+
+        ScalarFitnessKernel.rowDelta(k, j, n, genes, offset, base, baseOffset, durations, priorities, changed, totals);
+    }
+
+    // Overlap of pairs of intervals in each lane
+    private static IntVector overlap(IntVector start1, IntVector end1, IntVector start2, IntVector end2) {
+        return end1.min(end2).sub(start1.max(start2)).max(0);
+    }
+
+    // Weighted priority inversion of pairs of tasks in each lane
+    private static IntVector inversion(IntVector start1, IntVector start2, IntVector priority1, IntVector priority2) {
+        VectorMask<Integer> inverted = start1.lt(start2).and(priority1.compare(VectorOperators.GT, priority2))
+                .or(start1.compare(VectorOperators.GT, start2).and(priority1.lt(priority2)));
+        return IntVector.zero(SPECIES).blend(priority1.sub(priority2).abs(), inverted);
+    }
+}
@@ -0,0 +1,239 @@
+package com.jnbrauer;
+
+import com.jnbrauer.fitness.FitnessBreakdown;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A run of the scheduler that can be polled for the best schedule found so far and stopped at any point.
+ *
+ * The run checks its termination criteria after every generation: the number of generations, a target fitness, a
+ * number of generations without improvement and a time limit. cancel() stops it at the end of the current generation.
+ *
+ * All methods are thread safe.
+ *
+ * @author Jude Brauer
+ */
+public class AnytimeRun {
+    /**
+     * The best schedule found so far. Never modified after creation, so it can be shared between threads.
+     */
+    private static class Best {
+        final int fitness;
+        final FitnessBreakdown breakdown;
+        final int[] schedule;
+        final int generation;
+
+        Best(int fitness, FitnessBreakdown breakdown, int[] schedule, int generation) {
+            this.fitness = fitness;
+            this.breakdown = breakdown;
+            this.schedule = schedule;
+            this.generation = generation;
+        }
+    }
+
+    // Termination criteria
+    private final int nGenerations;
+    private final int targetFitness;
+    private final int stagnationLimit;
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private final AtomicReference<Best> best = new AtomicReference<>();
+    private final AtomicReference<TerminationReason> reason = new AtomicReference<>();
+    private volatile boolean cancelled = false;
+    private volatile int generations = 0;
+
+    // Result of the run, completed by the scheduler
+    final CompletableFuture<ScheduleResult> result = new CompletableFuture<>();
+
+    /**
+     * Create a run with the given termination criteria. The time limit starts now.
+     * @param nGenerations maximum number of generations
+     * @param targetFitness stop once a schedule with this fitness or lower is found
+     * @param stagnationLimit stop once the best fitness has not improved for this many generations, or 0 to never stop
+     *                        for stagnation
+     * @param timeLimit time limit in milliseconds, or 0 for no limit
+     */
+    AnytimeRun(int nGenerations, int targetFitness, int stagnationLimit, long timeLimit) {
+        this.nGenerations = nGenerations;
+        this.targetFitness = targetFitness;
+        this.stagnationLimit = stagnationLimit;
+        this.hasDeadline = timeLimit > 0;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimit);
+    }
+
+    /**
+     * Record the best schedule of a generation if it is better than the best schedule found so far. Only copies the
+     * schedule if it is better.
+     * @param fitness fitness of the schedule
+     * @param breakdown fitness breakdown of the schedule
+     * @param genes array containing the schedule
+     * @param offset offset of the schedule in genes
+     * @param nTasks number of tasks in the schedule
+     * @param generation index of the generation
+     */
+    void offer(int fitness, FitnessBreakdown breakdown, int[] genes, int offset, int nTasks, int generation) {
+        Best current = best.get();
+        if (current != null && fitness >= current.fitness) return;
+
+        int[] schedule = new int[nTasks];
+        System.arraycopy(genes, offset, schedule, 0, nTasks);
+        FitnessBreakdown copy = new FitnessBreakdown(nTasks);
+        copy.copyFrom(breakdown);
+        Best offered = new Best(fitness, copy, schedule, generation);
+
+        // Another thread may have found a better schedule in the meantime
+        while (current == null || fitness < current.fitness) {
+            if (best.compareAndSet(current, offered)) return;
+            current = best.get();
+        }
+    }
+
+    /**
+     * Check the termination criteria after a generation has finished. Once this returns true it always returns true.
+     * @param generationsDone number of generations finished by the caller
+     * @return true if the run should stop
+     */
+    boolean shouldStop(int generationsDone) {
+        if (generationsDone > generations) generations = generationsDone;
+
+        // Every other caller stops as well once one has stopped the run, except for reaching the number of generations,
+        // which each island of an island run does on its own
+        TerminationReason stopped = reason.get();
+        if (stopped != null && stopped != TerminationReason.GENERATIONS) return true;
+
+        Best current = best.get();
+        TerminationReason stop = null;
+        if (cancelled) {
+            stop = TerminationReason.CANCELLED;
+        } else if (current != null && current.fitness <= targetFitness) {
+            stop = TerminationReason.TARGET_FITNESS;
+        } else if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            stop = TerminationReason.TIME_LIMIT;
+        } else if (stagnationLimit > 0 && current != null
+                && generationsDone - 1 - current.generation >= stagnationLimit) {
+            stop = TerminationReason.STAGNATION;
+        } else if (generationsDone >= nGenerations) {
+            stop = TerminationReason.GENERATIONS;
+        }
+
+        if (stop == null) return false;
+        reason.compareAndSet(null, stop);
+        return true;
+    }
+
+    /**
+     * Restore the best schedule and number of generations of a run resumed from a checkpoint.
+     * @param bestFitness fitness of the best schedule
+     * @param bestBreakdown fitness breakdown of the best schedule
+     * @param bestSchedule best schedule, or null if there is none
+     * @param bestGeneration generation the best schedule was found in
+     * @param generationsDone number of generations done before the checkpoint
+     */
+    void restore(int bestFitness, FitnessBreakdown bestBreakdown, int[] bestSchedule, int bestGeneration,
+                 int generationsDone) {
+        if (bestSchedule != null) best.set(new Best(bestFitness, bestBreakdown, bestSchedule, bestGeneration));
+        generations = generationsDone;
+    }
+
+    /**
+     * Get the generation the best schedule was found in.
+     * @return generation, or -1 if no schedule has been found yet
+     */
+    int getBestGeneration() {
+        Best current = best.get();
+        return current == null ? -1 : current.generation;
+    }
+
+    /**
+     * Get the reason the run stopped or is stopping.
+     * @return termination reason, or null if the run has not decided to stop yet
+     */
+    public TerminationReason getTerminationReason() {
+        return reason.get();
+    }
+
+    /**
+     * Get the best schedule found so far.
+     * @return copy of the best schedule, or null if no generation has been evaluated yet
+     */
+    public int[] getBestSchedule() {
+        Best current = best.get();
+        return current == null ? null : current.schedule.clone();
+    }
+
+    /**
+     * Get the fitness of the best schedule found so far.
+     * @return best fitness, or Integer.MAX_VALUE if no generation has been evaluated yet
+     */
+    public int getBestFitness() {
+        Best current = best.get();
+        return current == null ? Integer.MAX_VALUE : current.fitness;
+    }
+
+    /**
+     * Get the fitness breakdown of the best schedule found so far.
+     * @return copy of the breakdown, or null if no generation has been evaluated yet
+     */
+    public FitnessBreakdown getBestBreakdown() {
+        Best current = best.get();
+        if (current == null) return null;
+
+        FitnessBreakdown breakdown = new FitnessBreakdown(current.schedule.length);
+        breakdown.copyFrom(current.breakdown);
+        return breakdown;
+    }
+
+    /**
+     * Get the number of generations finished so far. With several islands this is the number of generations
+     * finished by the fastest island.
+     * @return number of generations
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Stop the run at the end of the current generation. Does nothing if the run has already stopped.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if the run has stopped.
+     * @return true if the run has stopped
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Wait for the run to stop and get its result.
+     * @return result of the run
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if the run failed
+     */
+    public ScheduleResult get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    /**
+     * Wait at most the given time for the run to stop and get its result.
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return result of the run
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if the run failed
+     * @throws TimeoutException if the run did not stop in time
+     */
+    public ScheduleResult get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+}
@@ -0,0 +1,132 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.OverlapIndexCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Solves many independent scheduling problems at once on a fixed number of threads.
+ *
+ * Each problem gets its own single-threaded Scheduler. Problems with the same reserved times and time range share one
+ * overlap index through an OverlapIndexCache instead of each building their own. No log files are written unless the
+ * configuration enables them. Problems never share log or checkpoint files: the n-th problem submitted, counting from
+ * 0, gets -n added to the names of the files the configuration sets, e.g. output-3.csv instead of output.csv.
+ *
+ * @author Jude Brauer
+ */
+public class BatchScheduler implements AutoCloseable {
+    // Default number of overlap indexes kept in the cache
+    private static final int DEFAULT_INDEX_CACHE_CAPACITY = 1024;
+
+    private final int nGenerations;
+    private final long seed;
+    private final ExecutorService pool;
+    private final OverlapIndexCache indexCache;
+    // Number of problems submitted so far, used to give each problem its own output files
+    private final AtomicInteger nSubmitted = new AtomicInteger();
+
+    // Applied to every scheduler before it runs
+    private volatile Consumer<Scheduler> configuration = scheduler -> { };
+
+    /**
+     * Create a batch scheduler with one thread for each available processor.
+     * @param nGenerations maximum number of generations to run for each problem
+     */
+    public BatchScheduler(int nGenerations) {
+        this(nGenerations, Runtime.getRuntime().availableProcessors(), 12, DEFAULT_INDEX_CACHE_CAPACITY);
+    }
+
+    /**
+     * Create a batch scheduler.
+     * @param nGenerations maximum number of generations to run for each problem
+     * @param nThreads number of problems solved at once
+     * @param seed seed of every scheduler, so that a problem always gets the same solution
+     * @param indexCacheCapacity maximum number of overlap indexes kept in the cache
+     */
+    public BatchScheduler(int nGenerations, int nThreads, long seed, int indexCacheCapacity) {
+        if (nThreads < 1) throw new IllegalArgumentException("nThreads must be at least 1");
+
+        this.nGenerations = nGenerations;
+        this.seed = seed;
+        this.indexCache = new OverlapIndexCache(indexCacheCapacity);
+
+        AtomicInteger nCreated = new AtomicInteger();
+        ThreadFactory threads = runnable -> {
+            Thread thread = new Thread(runnable, "batch-scheduler-" + nCreated.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = Executors.newFixedThreadPool(nThreads, threads);
+    }
+
+    /**
+     * Set a configuration applied to the scheduler of every problem submitted afterwards, for example to set
+     * termination criteria or a replacement strategy. Log files are disabled before the configuration is applied, and
+     * the names of any log or checkpoint files it sets are numbered by problem afterwards.
+     * @param configuration function configuring a scheduler
+     */
+    public void setConfiguration(Consumer<Scheduler> configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Queue a problem to be solved.
+     * @param problem problem to solve
+     * @return future completed with the finished run once the problem is solved
+     */
+    public CompletableFuture<AnytimeRun> submit(SchedulingProblem problem) {
+        Consumer<Scheduler> configuration = this.configuration;
+        int index = nSubmitted.getAndIncrement();
+        return CompletableFuture.supplyAsync(() -> {
+            Scheduler scheduler = new Scheduler(problem.getMaxTime(), problem.getTasks(), problem.getReservedTimes(),
+                    seed, 1, indexCache);
+            scheduler.setLogFile(null);
+            configuration.accept(scheduler);
+            scheduler.suffixOutputFiles("-" + index);
+            return scheduler.solve(nGenerations);
+        }, pool);
+    }
+
+    /**
+     * Solve a list of problems and wait for all of them to finish.
+     * @param problems problems to solve
+     * @return finished run of each problem, in the same order as the problems
+     * @throws IllegalStateException if solving a problem failed
+     */
+    public List<AnytimeRun> solveAll(List<SchedulingProblem> problems) {
+        List<CompletableFuture<AnytimeRun>> futures = new ArrayList<>(problems.size());
+        for (SchedulingProblem problem : problems) futures.add(submit(problem));
+
+        List<AnytimeRun> runs = new ArrayList<>(problems.size());
+        try {
+            for (CompletableFuture<AnytimeRun> future : futures) runs.add(future.join());
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Solving a problem failed", e.getCause());
+        }
+        return runs;
+    }
+
+    /**
+     * Get the cache of overlap indexes shared by the problems.
+     * @return overlap index cache
+     */
+    public OverlapIndexCache getIndexCache() {
+        return indexCache;
+    }
+
+    /**
+     * Stop accepting problems. Problems already submitted are still solved.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
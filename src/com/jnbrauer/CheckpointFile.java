@@ -0,0 +1,215 @@
+package com.jnbrauer;
+
+import com.jnbrauer.fitness.FitnessBreakdown;
+import com.jnbrauer.fitness.FitnessCache;
+import com.jnbrauer.fitness.FitnessEvaluator;
+import com.jnbrauer.utils.IntArrays;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reads and writes checkpoint files, which hold the state of a run between two generations so that it can be resumed.
+ * Only start times are saved; fitnesses are calculated again when a checkpoint is loaded.
+ *
+ * A checkpoint is written to a temporary file next to the checkpoint, forced to disk and then moved over the previous
+ * checkpoint, so a crash while writing leaves the previous checkpoint intact.
+ *
+ * Layout (all values big-endian):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    number of tasks
+ * int    number of individuals in each generation
+ * int    number of workers
+ * int    number of generations done
+ * int    best fitness so far, or Integer.MAX_VALUE if there is none
+ * int    generation the best schedule was found in
+ * int[]  best schedule, only if there is one
+ * for each worker: long seed and long gamma of its random stream
+ * int    number of individuals that survived from the previous generation
+ * int[]  start times of every individual of the generation about to be evaluated
+ * int    1 if the fitness cache follows, otherwise 0
+ * ...    contents of the fitness cache as written by FitnessCache.save()
+ * </pre>
+ *
+ * @author Jude Brauer
+ */
+final class CheckpointFile {
+    /**
+     * Identifies a checkpoint file.
+     */
+    static final int MAGIC = 0x53474350;
+    /**
+     * Version of the file format.
+     */
+    static final int VERSION = 1;
+
+    private CheckpointFile() {
+    }
+
+    /**
+     * Save the state of a run to a checkpoint file. Must be called between breeding a generation and evaluating it.
+     * @param file checkpoint file
+     * @param buffer buffer to write the checkpoint from, or null; reused if it is large enough
+     * @param generation number of generations done
+     * @param run run holding the best schedule
+     * @param randoms random stream of each worker
+     * @param population generation about to be evaluated
+     * @param cache fitness cache, or null
+     * @return buffer the checkpoint was written from, to pass to the next call
+     * @throws IOException if the file could not be written
+     */
+    static ByteBuffer save(Path file, ByteBuffer buffer, int generation, AnytimeRun run, SplitMix[] randoms,
+                           Population population, FitnessCache cache) throws IOException {
+        int nTasks = population.nTasks;
+        int size = population.size;
+        int[] best = run.getBestSchedule();
+        long bytes = 10L * Integer.BYTES + (best == null ? 0 : (long) nTasks * Integer.BYTES)
+                + 2L * randoms.length * Long.BYTES + (long) size * nTasks * Integer.BYTES
+                + (cache == null ? 0 : cache.stateSize());
+        if (bytes > Integer.MAX_VALUE) throw new IOException("Checkpoint of " + bytes + " bytes is too large");
+        if (buffer == null || buffer.capacity() < bytes) buffer = ByteBuffer.allocateDirect((int) bytes);
+
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(nTasks);
+        buffer.putInt(size);
+        buffer.putInt(randoms.length);
+        buffer.putInt(generation);
+
+        buffer.putInt(run.getBestFitness());
+        buffer.putInt(run.getBestGeneration());
+        if (best != null) IntArrays.putInts(buffer, best, 0, nTasks);
+
+        for (SplitMix random : randoms) {
+            buffer.putLong(random.getSeed());
+            buffer.putLong(random.getGamma());
+        }
+
+        buffer.putInt(population.nSurvivors);
+        IntArrays.putInts(buffer, population.genes, 0, size * nTasks);
+
+        buffer.putInt(cache == null ? 0 : 1);
+        if (cache != null) cache.save(buffer);
+
+        buffer.flip();
+        write(file, buffer);
+        return buffer;
+    }
+
+    /**
+     * Restore the state of a run from a checkpoint, replacing the random streams and the generation about to be
+     * evaluated. The best schedule and the survivors are evaluated again.
+     * @param checkpoint contents of the checkpoint after its header
+     * @param randoms random stream of each worker, replaced with the saved streams
+     * @param population population to read the generation into, with the saved number of tasks and individuals
+     * @param cache fitness cache to restore, or null if the run has none
+     * @param evaluator evaluator of the current reserved times
+     * @param fitness calculates the fitness of a breakdown
+     * @param run run to restore the best schedule of
+     * @return number of generations done before the checkpoint
+     */
+    static int load(ByteBuffer checkpoint, SplitMix[] randoms, Population population, FitnessCache cache,
+                    FitnessEvaluator evaluator, ToIntFunction<FitnessBreakdown> fitness, AnytimeRun run) {
+        int nTasks = population.nTasks;
+        int size = population.size;
+        int savedTasks = checkpoint.getInt();
+        int savedSize = checkpoint.getInt();
+        int savedWorkers = checkpoint.getInt();
+        if (savedTasks != nTasks || savedSize != size || savedWorkers != randoms.length) {
+            throw new IllegalArgumentException("Checkpoint of " + savedTasks + " tasks, " + savedSize
+                    + " individuals and " + savedWorkers + " workers does not match " + nTasks + " tasks, " + size
+                    + " individuals and " + randoms.length + " workers");
+        }
+        int generation = checkpoint.getInt();
+
+        int bestFitness = checkpoint.getInt();
+        int bestGeneration = checkpoint.getInt();
+        int[] best = null;
+        FitnessBreakdown bestBreakdown = null;
+        if (bestFitness != Integer.MAX_VALUE) {
+            best = new int[nTasks];
+            IntArrays.getInts(checkpoint, best, 0, nTasks);
+            bestBreakdown = new FitnessBreakdown(nTasks);
+        }
+
+        for (int w = 0; w < randoms.length; w++) randoms[w] = new SplitMix(checkpoint.getLong(), checkpoint.getLong());
+
+        population.nSurvivors = checkpoint.getInt();
+        IntArrays.getInts(checkpoint, population.genes, 0, size * nTasks);
+        population.hasParents = false;
+
+        boolean hasCache = checkpoint.getInt() != 0;
+        if (hasCache != (cache != null)) {
+            throw new IllegalArgumentException(hasCache
+                    ? "Checkpoint has a fitness cache but the scheduler has none"
+                    : "Checkpoint has no fitness cache but the scheduler has one");
+        }
+        if (cache != null) cache.load(checkpoint);
+
+        if (best != null) evaluator.evaluate(best, bestBreakdown);
+        for (int i = 0; i < population.nSurvivors; i++) {
+            evaluator.evaluate(population.genes, population.offset(i), population.breakdowns[i]);
+            population.fitnesses[i] = fitness.applyAsInt(population.breakdowns[i]);
+        }
+        run.restore(bestFitness, bestBreakdown, best, bestGeneration, generation);
+
+        return generation;
+    }
+
+    /**
+     * Replace a checkpoint file atomically.
+     * @param file checkpoint file
+     * @param contents contents of the checkpoint, from its position to its limit
+     * @throws IOException if the file could not be written
+     */
+    static void write(Path file, ByteBuffer contents) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) channel.write(contents);
+            channel.force(false);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a checkpoint file and check its header.
+     * @param file checkpoint file
+     * @return contents of the checkpoint, positioned after MAGIC and VERSION
+     * @throws IOException if the file could not be read or is not a checkpoint
+     */
+    static ByteBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large to be a checkpoint");
+
+            ByteBuffer contents = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.BIG_ENDIAN);
+            while (contents.hasRemaining()) {
+                if (channel.read(contents) < 0) throw new IOException("Unexpected end of " + file);
+            }
+            contents.flip();
+
+            if (contents.remaining() < 2 * Integer.BYTES || contents.getInt() != MAGIC) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            int version = contents.getInt();
+            if (version != VERSION) throw new IOException("Unsupported checkpoint version " + version);
+            return contents;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.jnbrauer;
+
+/**
+ * What to do with a newly bred schedule that is identical to a schedule in the fitness cache.
+ *
+ * Only the cache is checked. Schedules are added to it once their generation has been evaluated, so two identical
+ * children bred in the same generation are not detected as duplicates of each other and are both evaluated. The
+ * cache is bounded and evicts old entries, so a schedule evicted from it can be bred again.
+ *
+ * @author Jude Brauer
+ */
+public enum DuplicatePolicy {
+    /**
+     * Keep duplicates. Their fitness is taken from the cache.
+     */
+    ALLOW,
+    /**
+     * Replace duplicates with a new random schedule.
+     */
+    REJECT,
+    /**
+     * Mutate duplicates again until they are distinct, up to a fixed number of attempts.
+     */
+    REMUTATE
+}
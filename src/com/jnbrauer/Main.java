@@ -5,7 +5,6 @@ import com.jnbrauer.data.ReservedTime;
 import com.jnbrauer.data.Task;
 
 import java.util.Arrays;
-import java.util.Comparator;
 
 /**
  * Example usage of the scheduler. Runs the scheduler on a set of predefined tasks and reserved times and prints the
@@ -35,14 +34,11 @@ public class Main {
         };
 
         Scheduler scheduler = new Scheduler(7200, tasks, reservedTimes);
-        int[][] result = scheduler.run(50);
-
-        // Rank final generation
-        Arrays.sort(result, Comparator.comparingInt(scheduler::fitness));
-        System.out.println("Best fitness: " + scheduler.fitness(result[0]));
+        ScheduleResult result = scheduler.run(50);
+        System.out.println("Best fitness: " + result.getBestFitness());
 
         // Get intervals of best schedule and sort by time
-        Interval[] schedule = scheduler.genAllIntervals(result[0]);
+        Interval[] schedule = scheduler.genAllIntervals(result.getBestSchedule());
         Arrays.sort(schedule);
 
         for (Interval interval : schedule) {
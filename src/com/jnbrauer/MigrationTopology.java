@@ -0,0 +1,41 @@
+package com.jnbrauer;
+
+/**
+ * The ways islands can be connected when the scheduler evolves several populations. Every migration interval each
+ * island sends copies of its best individuals to the islands it is connected to.
+ *
+ * @author Jude Brauer
+ */
+public enum MigrationTopology {
+    /**
+     * Each island sends migrants to the next island, and the last island to the first.
+     */
+    RING,
+    /**
+     * Each island sends migrants to every other island.
+     */
+    FULLY_CONNECTED;
+
+    /**
+     * Get the islands an island sends migrants to.
+     * @param island index of the sending island
+     * @param nIslands number of islands
+     * @return indices of the receiving islands
+     */
+    public int[] neighbors(int island, int nIslands) {
+        if (nIslands < 2) return new int[0];
+
+        switch (this) {
+            case RING:
+                return new int[] {(island + 1) % nIslands};
+            case FULLY_CONNECTED:
+                int[] neighbors = new int[nIslands - 1];
+                for (int i = 0, n = 0; i < nIslands; i++) {
+                    if (i != island) neighbors[n++] = i;
+                }
+                return neighbors;
+            default:
+                throw new IllegalStateException("Unknown topology " + this);
+        }
+    }
+}
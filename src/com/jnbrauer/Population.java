@@ -0,0 +1,88 @@
+package com.jnbrauer;
+
+import com.jnbrauer.fitness.FitnessBreakdown;
+
+/**
+ * A generation of schedules stored in a single flat array so that it can be reused from one generation to the next.
+ *
+ * The schedule of individual i takes up the values [i * nTasks, (i + 1) * nTasks) of the genes array.
+ *
+ * @author Jude Brauer
+ */
+class Population {
+    final int size;
+    final int nTasks;
+
+    // Start times of all individuals
+    final int[] genes;
+    // Fitness and fitness breakdown of each individual, valid once the population has been evaluated
+    final int[] fitnesses;
+    final FitnessBreakdown[] breakdowns;
+
+    // Indices of the two parents of each individual in the previous generation, valid if hasParents is set
+    final int[] parents1;
+    final int[] parents2;
+    boolean hasParents;
+
+    // Number of individuals at the start of the population that were copied unchanged from the previous generation
+    // along with their fitness, and do not need to be evaluated
+    int nSurvivors;
+
+    /**
+     * Create an empty population.
+     * @param size number of individuals
+     * @param nTasks number of tasks in each schedule
+     */
+    Population(int size, int nTasks) {
+        this.size = size;
+        this.nTasks = nTasks;
+        this.genes = new int[size * nTasks];
+        this.fitnesses = new int[size];
+        this.breakdowns = new FitnessBreakdown[size];
+        for (int i = 0; i < size; i++) breakdowns[i] = new FitnessBreakdown(nTasks);
+        this.parents1 = new int[size];
+        this.parents2 = new int[size];
+    }
+
+    /**
+     * Get the offset of an individual's schedule in the genes array.
+     * @param individual index of the individual
+     * @return offset of the individual's first start time
+     */
+    int offset(int individual) {
+        return individual * nTasks;
+    }
+
+    /**
+     * Get the individual with the best (lowest) fitness. Only valid once the population has been evaluated.
+     * @return index of the first individual with the lowest fitness
+     */
+    int best() {
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (fitnesses[i] < fitnesses[best]) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * Get the average fitness of the population. Only valid once the population has been evaluated.
+     * @return average fitness
+     */
+    double averageFitness() {
+        int fitnessSum = 0;
+        for (int i = 0; i < size; i++) fitnessSum += fitnesses[i];
+        return (double) fitnessSum / size;
+    }
+
+    /**
+     * Copy the schedule of an individual into a new array.
+     * @param individual index of the individual
+     * @return schedule
+     */
+    int[] schedule(int individual) {
+        int[] schedule = new int[nTasks];
+        System.arraycopy(genes, offset(individual), schedule, 0, nTasks);
+        return schedule;
+    }
+}
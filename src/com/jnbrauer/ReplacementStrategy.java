@@ -0,0 +1,27 @@
+package com.jnbrauer;
+
+/**
+ * The ways a generation can replace the one before it. Individuals that survive from one generation to the next keep
+ * their fitness, so only children are evaluated.
+ *
+ * @author Jude Brauer
+ */
+public enum ReplacementStrategy {
+    /**
+     * Children replace the whole generation. The best schedule can be lost.
+     */
+    GENERATIONAL,
+    /**
+     * The n best individuals survive unchanged and children replace the rest.
+     */
+    ELITIST,
+    /**
+     * Only n children are bred each generation and they replace the n worst individuals.
+     */
+    STEADY_STATE,
+    /**
+     * (mu + lambda): n children (lambda) are bred from the mu surviving individuals, where mu is the usual size of a
+     * generation, and the best mu of the survivors and children together survive into the next generation.
+     */
+    MU_PLUS_LAMBDA
+}
@@ -0,0 +1,174 @@
+package com.jnbrauer;
+
+import com.jnbrauer.fitness.FitnessBreakdown;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a run: the final generation ranked by the fitnesses the run already calculated, and the best schedule
+ * found in any generation along with its fitness breakdown. Nothing is evaluated again to read it.
+ *
+ * With several islands the final generations of all islands are ranked together.
+ *
+ * Results are never modified after creation; every schedule handed out is a copy.
+ *
+ * @author Jude Brauer
+ */
+public final class ScheduleResult {
+    // Final generation ordered from best to worst fitness, individuals with equal fitness in their original order
+    private final int[][] schedules;
+    private final int[] fitnesses;
+
+    private final int[] bestSchedule;
+    private final int bestFitness;
+    private final FitnessBreakdown bestBreakdown;
+    private final int bestGeneration;
+
+    private final int generations;
+    private final TerminationReason terminationReason;
+
+    /**
+     * Rank the final generations of a finished run.
+     * @param populations evaluated final generation of each island
+     * @param run finished run holding the best schedule
+     */
+    ScheduleResult(Population[] populations, AnytimeRun run) {
+        int size = 0;
+        for (Population population : populations) size += population.size;
+
+        // Sort (fitness << 32 | index) to rank the individuals without boxing them
+        long[] ranking = new long[size];
+        int index = 0;
+        for (Population population : populations) {
+            for (int i = 0; i < population.size; i++, index++) {
+                ranking[index] = (long) population.fitnesses[i] << 32 | index;
+            }
+        }
+        Arrays.sort(ranking);
+
+        this.schedules = new int[size][];
+        this.fitnesses = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            index = (int) ranking[rank];
+            int p = 0;
+            while (index >= populations[p].size) index -= populations[p++].size;
+
+            schedules[rank] = populations[p].schedule(index);
+            fitnesses[rank] = populations[p].fitnesses[index];
+        }
+
+        this.bestSchedule = run.getBestSchedule();
+        this.bestFitness = run.getBestFitness();
+        this.bestBreakdown = run.getBestBreakdown();
+        this.bestGeneration = run.getBestGeneration();
+        this.generations = run.getGenerations();
+        this.terminationReason = run.getTerminationReason();
+    }
+
+    /**
+     * Get the number of schedules in the final generation.
+     * @return number of schedules
+     */
+    public int getSize() {
+        return schedules.length;
+    }
+
+    /**
+     * Get a schedule of the final generation by its rank.
+     * @param rank rank of the schedule, 0 for the most fit
+     * @return copy of the schedule
+     */
+    public int[] getSchedule(int rank) {
+        return schedules[rank].clone();
+    }
+
+    /**
+     * Get the fitness of a schedule of the final generation by its rank.
+     * @param rank rank of the schedule, 0 for the most fit
+     * @return fitness of the schedule
+     */
+    public int getFitness(int rank) {
+        return fitnesses[rank];
+    }
+
+    /**
+     * Get the most fit schedules of the final generation.
+     * @param k number of schedules, at most getSize()
+     * @return copies of the k most fit schedules, from best to worst
+     */
+    public int[][] getTop(int k) {
+        if (k < 0 || k > schedules.length) {
+            throw new IllegalArgumentException("k must be between 0 and " + schedules.length);
+        }
+
+        int[][] top = new int[k][];
+        for (int rank = 0; rank < k; rank++) top[rank] = schedules[rank].clone();
+        return top;
+    }
+
+    /**
+     * Get every schedule of the final generation.
+     * @return copies of the schedules, from best to worst
+     */
+    public int[][] getSchedules() {
+        return getTop(schedules.length);
+    }
+
+    /**
+     * Get the fitness of every schedule of the final generation.
+     * @return fitnesses from best to worst
+     */
+    public int[] getFitnesses() {
+        return fitnesses.clone();
+    }
+
+    /**
+     * Get the best schedule found in any generation of the run.
+     * @return copy of the best schedule
+     */
+    public int[] getBestSchedule() {
+        return bestSchedule.clone();
+    }
+
+    /**
+     * Get the fitness of the best schedule found in any generation of the run.
+     * @return best fitness
+     */
+    public int getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * Get the terms making up the fitness of the best schedule found in any generation of the run.
+     * @return copy of the fitness breakdown
+     */
+    public FitnessBreakdown getBestBreakdown() {
+        FitnessBreakdown breakdown = new FitnessBreakdown(bestSchedule.length);
+        breakdown.copyFrom(bestBreakdown);
+        return breakdown;
+    }
+
+    /**
+     * Get the generation the best schedule was found in.
+     * @return index of the generation
+     */
+    public int getBestGeneration() {
+        return bestGeneration;
+    }
+
+    /**
+     * Get the number of generations the run finished.
+     * @return number of generations
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Get the reason the run stopped.
+     * @return termination reason
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+}
@@ -1,13 +1,59 @@
 package com.jnbrauer;
 
+import com.jnbrauer.data.FreeSlotIndex;
 import com.jnbrauer.data.Interval;
-import com.jnbrauer.data.IntervalTree;
+import com.jnbrauer.data.MutableIntervalTree;
+import com.jnbrauer.data.OverlapIndex;
+import com.jnbrauer.data.OverlapIndexCache;
+import com.jnbrauer.data.OverlapIndexType;
 import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.ReservedTimeColumns;
 import com.jnbrauer.data.Task;
-import com.jnbrauer.utils.CSVWriter;
+import com.jnbrauer.data.TaskColumns;
+import com.jnbrauer.fitness.FitnessBreakdown;
+import com.jnbrauer.fitness.FitnessCache;
+import com.jnbrauer.fitness.FitnessEvaluator;
+import com.jnbrauer.fitness.FitnessKernel;
+import com.jnbrauer.fitness.LocalSearch;
+import com.jnbrauer.fitness.OverlapMethod;
+import com.jnbrauer.fitness.RemoteEvaluator;
+import com.jnbrauer.metrics.GenerationEvent;
+import com.jnbrauer.metrics.GenerationListener;
+import com.jnbrauer.metrics.GenerationMetrics;
+import com.jnbrauer.utils.BinaryGenerationLog;
+import com.jnbrauer.utils.StreamingCSVWriter;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.Random;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 
 /**
  * Uses a genetic algorithm to schedule a set of tasks.
@@ -18,6 +64,28 @@ import java.util.Random;
  * Individual schedules are represented as integer arrays where each value represent the start time of the task at the
  * corresponding index in the provided task array.
  *
+ * Each generation can be evaluated and bred by several worker threads. The population is split into one contiguous
+ * chunk per worker and every worker draws from its own random stream split off the seed, so a run with a given seed
+ * and thread count always produces the same result.
+ *
+ * Reserved times can be added and removed while the scheduler is in use. A run in progress picks up the change at the
+ * start of its next generation.
+ *
+ * After a small change to the tasks, reschedule() seeds the initial population from the previous best schedule
+ * instead of random schedules, so that the run starts close to a good solution.
+ *
+ * A run stops after the requested number of generations, or earlier once a termination criterion set with
+ * setTargetFitness(), setStagnationLimit() or setTimeLimit() is met. start() runs in the background and returns an
+ * AnytimeRun that can be polled for the best schedule found so far or cancelled.
+ *
+ * With setIslands() the scheduler instead evolves several populations at once, each on its own thread, which
+ * periodically send copies of their best individuals to each other. Since islands do not wait for each other, which
+ * migrants arrive when depends on timing and island runs are not reproducible.
+ *
+ * Listeners added with addGenerationListener() receive the time spent in each phase of every generation. The same
+ * metrics are recorded as GenerationEvents when a flight recording is running. Phases are only timed while someone is
+ * listening.
+ *
  * @author Jude Brauer
  */
 public class Scheduler {
@@ -31,6 +99,8 @@ public class Scheduler {
     private static final double MUTATION_STDDEV = 60;
     // Selection tournament size
     private static final int SELECTION_T = 2;
+    // Maximum number of times a duplicate is mutated again to make it distinct
+    private static final int MAX_REMUTATIONS = 10;
 
     // Weight of task overlap in fitness function
     private static final double TASK_OVERLAP_WEIGHT = 1;
@@ -39,110 +109,1576 @@ public class Scheduler {
 
     private static final double PRIORITY_WEIGHT = 100;
 
+    // Counts the bytes allocated by each thread for metrics, or null if the JVM does not support it
+    private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTER = allocationCounter();
+
     // INSTANCE VARIABLES //////////////////////////////////////////////////////////////////////////////////////////////
     // Highest possible time value
     private final int maxTime;
 
-    // Task and reserved time data. These should never be modified after initialization.
+    // Seed for the random streams used by the genetic operators
+    private final long seed;
+    // Number of worker threads used to evaluate and breed each generation
+    private final int nThreads;
+
+    // Task data. These should never be modified after initialization.
     private final int nTasks;
-    private final Task[] tasks;
-    private final ReservedTime[] reservedTimes;
-    private final IntervalTree reservedIntervals;
+    private final String[] titles;
+    private final int[] durations;
+    private final int[] priorities;
+
+    // Reserved time data and everything used to evaluate fitness. These are only modified while holding the write lock
+    // and only used while holding the read lock, so that any number of populations can be evaluated at once.
+    private final ReadWriteLock reservedLock = new ReentrantReadWriteLock();
+    private ReservedTime[] reservedTimes;
+    private OverlapIndexType indexType = OverlapIndexType.PERIODIC;
+    private OverlapIndex reservedIntervals;
+    // Cache the overlap index is taken from, shared with other schedulers, or null to build it directly
+    private final OverlapIndexCache indexCache;
+    // Incremented every time the fitness function changes
+    private int reservedVersion = 0;
+
+    // Method used to calculate overlap between tasks
+    private OverlapMethod overlapMethod = OverlapMethod.SWEEP;
+    // Kernel running the inner loops of the fitness function
+    private FitnessKernel kernel = FitnessKernel.SCALAR;
+
+    // Evaluator from which each worker gets its own copy
+    private FitnessEvaluator evaluator;
+
+    // File to write the CSV generation log to, or null to not write one
+    private String logFile = "output.csv";
+    // File to write the binary generation log to, or null to not write one
+    private String binaryLogFile = null;
+
+    // Listeners receiving the metrics of each generation
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Island model settings. With a single island one population is evolved by nThreads workers.
+    private int nIslands = 1;
+    private MigrationTopology topology = MigrationTopology.RING;
+    private int migrationInterval = 10;
+    private int nMigrants = 2;
+
+    // Capacity of the fitness cache of each population, or 0 to not cache fitnesses, and what to do with duplicates
+    private int cacheCapacity = 0;
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.ALLOW;
 
-    private final Random random;
+    // How each generation replaces the one before it, and the number of elites, children or lambda depending on the
+    // strategy
+    private ReplacementStrategy replacement = ReplacementStrategy.GENERATIONAL;
+    private int replacementCount = 0;
+
+    // Number of best individuals improved by local search each generation, or 0 for no local search, and the number of
+    // moves all of them may try per generation
+    private int localSearchSize = 0;
+    private int localSearchBudget = 0;
+
+    // Start times at which each task fits between the reserved times, or null to mutate and initialize schedules
+    // without looking at the reserved times
+    private volatile FreeSlotIndex freeSlots = null;
+
+    // Start time of each task in the schedule the initial population is seeded from, -1 for tasks without one, or
+    // null to start from random schedules
+    private int[] warmStart = null;
+
+    // Termination criteria in addition to the number of generations
+    private int targetFitness = 0;
+    private int stagnationLimit = 0;
+    private long timeLimit = 0;
+
+    // File the state of each run is saved to every checkpointInterval generations, or null to not save checkpoints
+    private String checkpointFile = null;
+    private int checkpointInterval = 0;
+
+    // Evaluation workers each run sends its schedules to in batches of remoteBatchSize, or null to evaluate them on
+    // the worker threads, and the milliseconds a worker has to answer a batch
+    private List<SocketAddress> remoteWorkers = null;
+    private int remoteBatchSize = 0;
+    private long remoteTimeout = RemoteEvaluator.DEFAULT_TIMEOUT;
 
     /**
-     * Initialize the scheduler with the given tasks and reserved times.
+     * Initialize the scheduler with the given tasks and reserved times. The scheduler runs on a single thread.
      * @param maxTime max amount of time in which all tasks must be completed.
      * @param tasks tasks to schedule
      * @param reservedTimes reserved times
      */
     public Scheduler(int maxTime, Task[] tasks, ReservedTime[] reservedTimes) {
+        this(maxTime, tasks, reservedTimes, 12, 1);
+    }
+
+    /**
+     * Initialize the scheduler with the given tasks and reserved times, random seed and number of worker threads.
+     * @param maxTime max amount of time in which all tasks must be completed.
+     * @param tasks tasks to schedule
+     * @param reservedTimes reserved times
+     * @param seed seed for the random streams used by the genetic operators
+     * @param nThreads number of worker threads used to evaluate and breed each generation
+     */
+    public Scheduler(int maxTime, Task[] tasks, ReservedTime[] reservedTimes, long seed, int nThreads) {
+        this(maxTime, tasks, reservedTimes, seed, nThreads, null);
+    }
+
+    /**
+     * Initialize the scheduler with the given tasks and reserved times, random seed and number of worker threads, and
+     * take the overlap index of the reserved times from a cache shared with other schedulers.
+     * @param maxTime max amount of time in which all tasks must be completed.
+     * @param tasks tasks to schedule
+     * @param reservedTimes reserved times
+     * @param seed seed for the random streams used by the genetic operators
+     * @param nThreads number of worker threads used to evaluate and breed each generation
+     * @param indexCache cache of overlap indexes, or null to build the index directly
+     */
+    public Scheduler(int maxTime, Task[] tasks, ReservedTime[] reservedTimes, long seed, int nThreads,
+                     OverlapIndexCache indexCache) {
+        this(maxTime, TaskColumns.of(tasks), reservedTimes, seed, nThreads, indexCache);
+    }
+
+    /**
+     * Initialize the scheduler with tasks and reserved times stored in columns, for example as read by ProblemLoader.
+     * The scheduler runs on a single thread.
+     * @param maxTime max amount of time in which all tasks must be completed.
+     * @param tasks tasks to schedule
+     * @param reservedTimes reserved times
+     */
+    public Scheduler(int maxTime, TaskColumns tasks, ReservedTimeColumns reservedTimes) {
+        this(maxTime, tasks, reservedTimes, 12, 1);
+    }
+
+    /**
+     * Initialize the scheduler with tasks and reserved times stored in columns, for example as read by ProblemLoader,
+     * and the given random seed and number of worker threads. No Task objects are created.
+     * @param maxTime max amount of time in which all tasks must be completed.
+     * @param tasks tasks to schedule
+     * @param reservedTimes reserved times
+     * @param seed seed for the random streams used by the genetic operators
+     * @param nThreads number of worker threads used to evaluate and breed each generation
+     */
+    public Scheduler(int maxTime, TaskColumns tasks, ReservedTimeColumns reservedTimes, long seed, int nThreads) {
+        this(maxTime, tasks, reservedTimes.toReservedTimes(), seed, nThreads, null);
+    }
+
+    private Scheduler(int maxTime, TaskColumns tasks, ReservedTime[] reservedTimes, long seed, int nThreads,
+                      OverlapIndexCache indexCache) {
+        if (nThreads < 1) throw new IllegalArgumentException("nThreads must be at least 1");
+
         this.maxTime = maxTime;
-        this.nTasks = tasks.length;
-        this.tasks = tasks;
-        this.reservedTimes = reservedTimes;
-        this.reservedIntervals = new IntervalTree(reservedTimes, maxTime);
+        this.nTasks = tasks.size();
+        this.titles = tasks.copyTitles();
+        this.reservedTimes = reservedTimes.clone();
+        this.indexCache = indexCache;
+        this.reservedIntervals = buildReservedIntervals();
+
+        this.durations = tasks.copyDurations();
+        this.priorities = tasks.copyPriorities();
+
+        this.evaluator = new FitnessEvaluator(durations, priorities, reservedIntervals, overlapMethod, kernel);
+
+        this.seed = seed;
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * Set the method used to calculate the overlap between tasks in the fitness function. All methods give the same
+     * result. Defaults to OverlapMethod.SWEEP.
+     * @param overlapMethod overlap method
+     */
+    public void setOverlapMethod(OverlapMethod overlapMethod) {
+        reservedLock.writeLock().lock();
+        try {
+            this.overlapMethod = overlapMethod;
+            this.evaluator = new FitnessEvaluator(durations, priorities, reservedIntervals, overlapMethod, kernel);
+            reservedVersion++;
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Set the kernel running the inner loops of the fitness function. All kernels give the same result. Use
+     * FitnessKernel.vector() to use the JDK Vector API when it is available. Defaults to FitnessKernel.SCALAR.
+     * @param kernel fitness kernel
+     */
+    public void setFitnessKernel(FitnessKernel kernel) {
+        reservedLock.writeLock().lock();
+        try {
+            this.kernel = kernel;
+            this.evaluator = new FitnessEvaluator(durations, priorities, reservedIntervals, overlapMethod, kernel);
+            reservedVersion++;
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Set the kind of index used to find the overlap between tasks and reserved times in the fitness function. All
+     * kinds give the same result. Defaults to OverlapIndexType.PERIODIC.
+     * @param indexType overlap index type
+     */
+    public void setOverlapIndexType(OverlapIndexType indexType) {
+        reservedLock.writeLock().lock();
+        try {
+            this.indexType = indexType;
+            rebuildReservedIntervals();
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Set the file the CSV generation log is written to. Defaults to output.csv.
+     * @param logFile name of the log file, or null to not write a CSV log
+     */
+    public void setLogFile(String logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Set a file to write a binary generation log to in addition to the CSV log. The log holds the same data in a
+     * compact fixed-size record per generation and can be read with BinaryGenerationLogReader.
+     * @param binaryLogFile name of the log file, or null to not write a binary log
+     */
+    public void setBinaryLogFile(String binaryLogFile) {
+        this.binaryLogFile = binaryLogFile;
+    }
+
+    /**
+     * Evolve several populations (islands) at once, each on its own thread and with its own GEN_SIZE individuals.
+     * Every migrationInterval generations each island sends copies of its best nMigrants individuals to the islands it
+     * is connected to, where they replace the worst individuals once the next generation has been evaluated. Migrants
+     * are handed over without locking, so an island never waits for another. Defaults to a single island.
+     * @param nIslands number of islands, or 1 to evolve a single population with nThreads workers
+     * @param topology which islands send migrants to each other
+     * @param migrationInterval number of generations between migrations
+     * @param nMigrants number of individuals each island sends to each of its neighbors
+     */
+    public void setIslands(int nIslands, MigrationTopology topology, int migrationInterval, int nMigrants) {
+        if (nIslands < 1) throw new IllegalArgumentException("nIslands must be at least 1");
+        if (migrationInterval < 1) throw new IllegalArgumentException("migrationInterval must be at least 1");
+        if (nMigrants < 0 || nMigrants > GEN_SIZE) {
+            throw new IllegalArgumentException("nMigrants must be between 0 and " + GEN_SIZE);
+        }
+
+        this.nIslands = nIslands;
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.nMigrants = nMigrants;
+    }
+
+    /**
+     * Cache the fitness of recently evaluated schedules so that identical schedules are not evaluated again, and
+     * choose what happens to newly bred schedules that are already in the cache. Each population has its own cache,
+     * which is cleared when the fitness function changes. Disabled by default. Duplicates within the generation being
+     * bred are not detected, see DuplicatePolicy.
+     * @param capacity maximum number of schedules in the cache, or 0 to not cache fitnesses
+     * @param duplicatePolicy what to do with duplicates, must be ALLOW if the cache is disabled
+     */
+    public void setFitnessCache(int capacity, DuplicatePolicy duplicatePolicy) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+        if (capacity == 0 && duplicatePolicy != DuplicatePolicy.ALLOW) {
+            throw new IllegalArgumentException("Duplicates can only be detected with a fitness cache");
+        }
+
+        this.cacheCapacity = capacity;
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    /**
+     * Set how each generation replaces the one before it. Defaults to GENERATIONAL.
+     * @param replacement replacement strategy
+     * @param n number of elites for ELITIST, number of children per generation for STEADY_STATE, or number of children
+     *          (lambda) for MU_PLUS_LAMBDA. Ignored for GENERATIONAL.
+     */
+    public void setReplacement(ReplacementStrategy replacement, int n) {
+        switch (replacement) {
+            case GENERATIONAL:
+                n = 0;
+                break;
+            case ELITIST:
+                if (n < 1 || n >= GEN_SIZE) {
+                    throw new IllegalArgumentException("n must be between 1 and " + (GEN_SIZE - 1));
+                }
+                break;
+            case STEADY_STATE:
+                if (n < 1 || n > GEN_SIZE) throw new IllegalArgumentException("n must be between 1 and " + GEN_SIZE);
+                break;
+            case MU_PLUS_LAMBDA:
+                if (n < 1) throw new IllegalArgumentException("n must be at least 1");
+                break;
+        }
+
+        this.replacement = replacement;
+        this.replacementCount = n;
+    }
+
+    /**
+     * Improve the best individuals of each generation by local search before the next generation is bred. Tasks are
+     * moved one at a time to the nearest start time next to a task or reserved time they overlap with, as long as that
+     * improves the fitness, until no move helps or the budget is used up. Disabled by default.
+     * @param nIndividuals number of best individuals to improve, or 0 to disable local search
+     * @param evaluationBudget number of moves tried per generation, split evenly between the individuals
+     */
+    public void setLocalSearch(int nIndividuals, int evaluationBudget) {
+        if (nIndividuals < 0) throw new IllegalArgumentException("nIndividuals must not be negative");
+        if (nIndividuals > 0 && evaluationBudget < 1) {
+            throw new IllegalArgumentException("evaluationBudget must be at least 1");
+        }
+
+        this.localSearchSize = nIndividuals;
+        this.localSearchBudget = evaluationBudget;
+    }
+
+    /**
+     * Make mutation and initialization only place tasks in gaps between reserved times that are long enough for them.
+     * Random schedules draw each start time uniformly from the feasible start times of the task, and mutations move a
+     * task by a normally distributed distance counted in feasible start times only, so a move skips over reserved
+     * times instead of being retried. Tasks that fit into no gap are placed as usual. Disabled by default.
+     * @param enabled true to place tasks in free gaps
+     */
+    public void setConstraintAwareMutation(boolean enabled) {
+        reservedLock.writeLock().lock();
+        try {
+            this.freeSlots = enabled ? new FreeSlotIndex(reservedTimes, maxTime, durations) : null;
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seed the initial population of every following run from a schedule for a previous version of the tasks. Tasks
+     * are matched to previous tasks by title, in order if several have the same title, and keep their previous start
+     * time. The first individual is the previous schedule itself and the others are mutations of it. Tasks without a
+     * previous task get random start times.
+     * @param previousTasks previous tasks, or null to start from random schedules again
+     * @param previousSchedule start time of each previous task
+     */
+    public void setWarmStart(Task[] previousTasks, int[] previousSchedule) {
+        if (previousTasks == null) {
+            this.warmStart = null;
+            return;
+        }
+        if (previousTasks.length != previousSchedule.length) {
+            throw new IllegalArgumentException("previousSchedule must have a start time for each previous task");
+        }
+
+        // Previous start times of each title, in order
+        Map<String, Deque<Integer>> startTimes = new HashMap<>();
+        for (int i = 0; i < previousTasks.length; i++) {
+            startTimes.computeIfAbsent(previousTasks[i].getTitle(), title -> new ArrayDeque<>())
+                    .add(previousSchedule[i]);
+        }
+
+        int[] warmStart = new int[nTasks];
+        for (int i = 0; i < nTasks; i++) {
+            Deque<Integer> previous = startTimes.get(titles[i]);
+            warmStart[i] = previous == null || previous.isEmpty() ? -1
+                    : Math.max(0, Math.min(maxTime, previous.poll()));
+        }
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Schedule the tasks again after the tasks of a previous schedule have been added to, removed or changed, starting
+     * from the previous schedule. Equivalent to setWarmStart() followed by run(). Combine with setStagnationLimit()
+     * to stop once the schedule has settled.
+     * @param previousTasks tasks of the previous schedule
+     * @param previousSchedule start time of each previous task, usually the best schedule of the previous run
+     * @param nGenerations maximum number of generations to run
+     * @return result of the run
+     */
+    public ScheduleResult reschedule(Task[] previousTasks, int[] previousSchedule, int nGenerations) {
+        setWarmStart(previousTasks, previousSchedule);
+        return run(nGenerations);
+    }
+
+    /**
+     * Set the fitness at which a run stops since the schedule is good enough. Defaults to 0, the optimal fitness.
+     * @param targetFitness stop once a schedule with this fitness or lower is found
+     */
+    public void setTargetFitness(int targetFitness) {
+        this.targetFitness = targetFitness;
+    }
+
+    /**
+     * Set the number of generations without improvement of the best fitness after which a run stops. Defaults to 0.
+     * @param stagnationLimit number of generations, or 0 to never stop because of stagnation
+     */
+    public void setStagnationLimit(int stagnationLimit) {
+        if (stagnationLimit < 0) throw new IllegalArgumentException("stagnationLimit must not be negative");
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    /**
+     * Set the wall-clock time after which a run stops. The limit is checked after every generation, so a run can
+     * take up to one generation longer. Defaults to 0.
+     * @param timeLimit time limit in milliseconds, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < 0) throw new IllegalArgumentException("timeLimit must not be negative");
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Save the state of every following run to a checkpoint file between generations, so that the run can be
+     * continued with resume() if it is interrupted. Each checkpoint atomically replaces the previous one. Only
+     * supported with a single island. Defaults to no checkpoints.
+     * @param checkpointFile name of the checkpoint file, or null to not save checkpoints
+     * @param interval number of generations between checkpoints
+     */
+    public void setCheckpoint(String checkpointFile, int interval) {
+        if (checkpointFile != null && interval < 1) throw new IllegalArgumentException("interval must be at least 1");
+
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Add a suffix to the names of the log and checkpoint files, so that schedulers configured the same way write to
+     * different files. The suffix goes before the extension, e.g. output.csv with suffix -3 becomes output-3.csv.
+     * @param suffix suffix to add
+     */
+    void suffixOutputFiles(String suffix) {
+        logFile = withSuffix(logFile, suffix);
+        binaryLogFile = withSuffix(binaryLogFile, suffix);
+        checkpointFile = withSuffix(checkpointFile, suffix);
+    }
+
+    // Insert a suffix before the first '.' of the last part of a path, or at the end if there is none
+    private static String withSuffix(String filename, String suffix) {
+        if (filename == null) return null;
+
+        int nameStart = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf(File.separatorChar)) + 1;
+        int dot = filename.indexOf('.', nameStart);
+        // A leading dot marks a hidden file, not an extension
+        if (dot == nameStart) dot = filename.indexOf('.', nameStart + 1);
+        if (dot < 0) return filename + suffix;
+        return filename.substring(0, dot) + suffix + filename.substring(dot);
+    }
+
+    /**
+     * Evaluate the schedules of every following run on EvaluationWorker processes instead of the worker threads. Each
+     * run connects to the workers, sends them the tasks and reserved times once, and then only sends start times and
+     * receives fitness breakdowns. Workers that can not be reached or disconnect are left out, and once none are left
+     * the schedules are evaluated locally again. The results are exactly the same as evaluating locally. Workers get
+     * RemoteEvaluator.DEFAULT_TIMEOUT to answer each batch. Defaults to evaluating locally.
+     * @param workers addresses of the workers, or null to evaluate locally
+     * @param batchSize number of schedules sent to a worker at once
+     */
+    public void setRemoteWorkers(List<? extends SocketAddress> workers, int batchSize) {
+        setRemoteWorkers(workers, batchSize, RemoteEvaluator.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Evaluate the schedules of every following run on EvaluationWorker processes, dropping workers that are still
+     * connected but do not answer a batch in time. See setRemoteWorkers(List, int).
+     * @param workers addresses of the workers, or null to evaluate locally
+     * @param batchSize number of schedules sent to a worker at once
+     * @param timeout milliseconds a worker has to answer its oldest batch before it is dropped as hung
+     */
+    public void setRemoteWorkers(List<? extends SocketAddress> workers, int batchSize, long timeout) {
+        if (workers != null && batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+        if (workers != null && timeout < 1) throw new IllegalArgumentException("timeout must be at least 1");
+
+        this.remoteWorkers = workers == null ? null : List.copyOf(workers);
+        this.remoteBatchSize = batchSize;
+        this.remoteTimeout = timeout;
+    }
+
+    /**
+     * Continue a run from a checkpoint saved by setCheckpoint(). The scheduler must have the same tasks, reserved
+     * times, seed, number of threads and settings as the one that saved the checkpoint; the run then continues exactly
+     * the way the interrupted run would have, and keeps saving checkpoints if they are enabled. The logs only contain
+     * the generations after the checkpoint, and the time limit starts again.
+     * @param checkpointFile name of the checkpoint file
+     * @param nGenerations maximum number of generations of the whole run, including those before the checkpoint
+     * @return result of the run
+     * @throws IOException if the checkpoint could not be read
+     * @throws IllegalArgumentException if the checkpoint was saved with a different number of tasks, generation size,
+     *         number of threads or fitness cache capacity
+     */
+    public ScheduleResult resume(String checkpointFile, int nGenerations) throws IOException {
+        ByteBuffer checkpoint = CheckpointFile.read(Paths.get(checkpointFile));
+        try {
+            return run(newRun(nGenerations), checkpoint);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(checkpointFile + " is truncated", e);
+        }
+    }
+
+    /**
+     * Add a listener that receives the metrics of each generation of every run.
+     * @param listener listener to add
+     */
+    public void addGenerationListener(GenerationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener added with addGenerationListener().
+     * @param listener listener to remove
+     * @return true if the listener was removed, false if it was not added
+     */
+    public boolean removeGenerationListener(GenerationListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Add a reserved time. If the overlap index is a MutableIntervalTree the repetitions of the reserved time are
+     * added to it, otherwise the index is rebuilt.
+     * @param reservedTime reserved time to add
+     */
+    public void addReservedTime(ReservedTime reservedTime) {
+        reservedLock.writeLock().lock();
+        try {
+            ReservedTime[] updated = Arrays.copyOf(reservedTimes, reservedTimes.length + 1);
+            updated[reservedTimes.length] = reservedTime;
+            reservedTimes = updated;
+
+            if (reservedIntervals instanceof MutableIntervalTree) {
+                MutableIntervalTree tree = (MutableIntervalTree) reservedIntervals;
+                for (Interval interval : reservedTime.intervals(maxTime)) tree.add(interval);
+                reservedVersion++;
+            } else {
+                rebuildReservedIntervals();
+            }
+            if (freeSlots != null) freeSlots = new FreeSlotIndex(reservedTimes, maxTime, durations);
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a reserved time that was given to the constructor or added with addReservedTime(). If the overlap index
+     * is a MutableIntervalTree the repetitions of the reserved time are removed from it, otherwise the index is
+     * rebuilt.
+     * @param reservedTime reserved time to remove
+     * @return true if the reserved time was removed, false if the scheduler does not have it
+     */
+    public boolean removeReservedTime(ReservedTime reservedTime) {
+        reservedLock.writeLock().lock();
+        try {
+            int index = Arrays.asList(reservedTimes).indexOf(reservedTime);
+            if (index < 0) return false;
+
+            ReservedTime[] updated = new ReservedTime[reservedTimes.length - 1];
+            System.arraycopy(reservedTimes, 0, updated, 0, index);
+            System.arraycopy(reservedTimes, index + 1, updated, index, updated.length - index);
+            reservedTimes = updated;
+
+            if (reservedIntervals instanceof MutableIntervalTree) {
+                MutableIntervalTree tree = (MutableIntervalTree) reservedIntervals;
+                for (Interval interval : reservedTime.intervals(maxTime)) tree.remove(interval);
+                reservedVersion++;
+            } else {
+                rebuildReservedIntervals();
+            }
+            if (freeSlots != null) freeSlots = new FreeSlotIndex(reservedTimes, maxTime, durations);
+
+            return true;
+        } finally {
+            reservedLock.writeLock().unlock();
+        }
+    }
+
+    // Rebuild the overlap index and fitness evaluator from the reserved times. Must hold the write lock.
+    private void rebuildReservedIntervals() {
+        reservedIntervals = buildReservedIntervals();
+        evaluator = new FitnessEvaluator(durations, priorities, reservedIntervals, overlapMethod, kernel);
+        reservedVersion++;
+    }
+
+    // Build the overlap index of the reserved times or take it from the cache
+    private OverlapIndex buildReservedIntervals() {
+        return indexCache == null ? indexType.build(reservedTimes, maxTime)
+                : indexCache.get(indexType, reservedTimes, maxTime);
+    }
+
+    /**
+     * Run the given number of generations of the genetic algorithm and return the final generation along with its
+     * fitnesses and the best schedule of the whole run. With several islands the final generations of all islands are
+     * ranked together. If a termination criterion stops the run early, the last evaluated generation is returned.
+     *
+     * @param nGenerations maximum number of generations to run
+     * @return result of the run
+     */
+    public ScheduleResult run(int nGenerations) {
+        AnytimeRun run = newRun(nGenerations);
+        return run(run, null);
+    }
+
+    /**
+     * Start running the genetic algorithm on a background thread. The returned run can be polled for the best schedule
+     * found so far, cancelled, or waited on for its result.
+     *
+     * @param nGenerations maximum number of generations to run
+     * @return the started run
+     */
+    public AnytimeRun start(int nGenerations) {
+        AnytimeRun run = newRun(nGenerations);
+
+        Thread thread = new Thread(() -> {
+            try {
+                run(run, null);
+            } catch (RuntimeException | Error e) {
+                run.result.completeExceptionally(e);
+            }
+        }, "scheduler-run");
+        thread.setDaemon(true);
+        thread.start();
+
+        return run;
+    }
+
+    /**
+     * Run the genetic algorithm on the calling thread.
+     *
+     * @param nGenerations maximum number of generations to run
+     * @return the finished run
+     */
+    AnytimeRun solve(int nGenerations) {
+        AnytimeRun run = newRun(nGenerations);
+        run(run, null);
+        return run;
+    }
+
+    // Create a run with the current termination criteria
+    private AnytimeRun newRun(int nGenerations) {
+        return new AnytimeRun(nGenerations, targetFitness, stagnationLimit, timeLimit);
+    }
+
+    /**
+     * Perform a run on the calling thread and complete it with its result.
+     *
+     * @param run run to perform
+     * @param checkpoint checkpoint to resume the run from, or null to start a new run
+     * @return result of the run
+     */
+    private ScheduleResult run(AnytimeRun run, ByteBuffer checkpoint) {
+        if (nIslands > 1 && (checkpoint != null || checkpointFile != null)) {
+            throw new IllegalStateException("Checkpoints are only supported with a single island");
+        }
+
+        // Create CSV writer and construct header. Lines are written in the background while the run continues.
+        StreamingCSVWriter csv = logFile == null ? null : new StreamingCSVWriter(logFile);
+        if (csv != null) {
+            String[] headerLine = new String[nTasks + 2];
+            headerLine[0] = "BestFitness";
+            headerLine[1] = "AvgFitness";
+            System.arraycopy(titles, 0, headerLine, 2, nTasks);
+            csv.addLine(headerLine);
+        }
+
+        BinaryGenerationLog binaryLog = binaryLogFile == null ? null : new BinaryGenerationLog(binaryLogFile, titles);
+
+        Population[] populations = null;
+        try (csv; binaryLog) {
+            populations = nIslands == 1 ? new Population[] {evolve(run, checkpoint, csv, binaryLog)}
+                    : evolveIslands(run, csv, binaryLog);
+        } catch (IOException e) {
+            // The log could not be written, but the run itself has finished
+            e.printStackTrace();
+        }
+        if (csv != null && csv.getDroppedLines() > 0) {
+            System.err.println(csv.getDroppedLines() + " lines are missing from " + logFile);
+        }
+
+        ScheduleResult result = new ScheduleResult(populations, run);
+        run.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Evolve a single population with nThreads workers.
+     *
+     * @param run run holding the termination criteria and best schedule
+     * @param checkpoint checkpoint to resume from, or null
+     * @param csv CSV log, or null
+     * @param binaryLog binary log, or null
+     * @return evaluated final generation
+     */
+    private Population evolve(AnytimeRun run, ByteBuffer checkpoint, StreamingCSVWriter csv,
+                           BinaryGenerationLog binaryLog) {
+        try (Evolution evolution = new Evolution(seed, nThreads)) {
+            int n = checkpoint == null ? 0 : evolution.restore(checkpoint, run);
+            boolean stopped;
+            do {
+                // Only time the phases if someone is listening
+                boolean measured = !listeners.isEmpty() || GenerationEvent.isRecording();
+                evolution.resetMetrics(measured);
+                long generationStart = measured ? System.nanoTime() : 0;
+
+                // Calculate all fitnesses
+                evolution.evaluate();
+                long searchStart = measured ? System.nanoTime() : 0;
+                evolution.localSearch();
+                Population current = evolution.current;
+
+                long loggingStart = measured ? System.nanoTime() : 0;
+                long loggingAllocated = measured ? allocatedBytes() : 0;
 
-        this.random = new Random(12);
+                // Find best and average fitness
+                int bestIndex = current.best();
+                int bestFitness = current.fitnesses[bestIndex];
+                double avgFitness = current.averageFitness();
+
+                // Write fitness statistics and most fit schedule to log file
+                log(csv, binaryLog, bestFitness, avgFitness, current.genes, current.offset(bestIndex));
+                run.offer(bestFitness, current.breakdowns[bestIndex], current.genes, current.offset(bestIndex), nTasks,
+                        n);
+
+                long breedingStart = measured ? System.nanoTime() : 0;
+                loggingAllocated = measured ? allocatedBytes() - loggingAllocated : 0;
+
+                // Generate next generation, unless the run stops early and the evaluated generation is returned
+                n++;
+                stopped = run.shouldStop(n);
+                if (!stopped || run.getTerminationReason() == TerminationReason.GENERATIONS) evolution.breed();
+
+                if (!stopped && checkpointFile != null && n % checkpointInterval == 0) {
+                    try {
+                        evolution.checkpoint(Paths.get(checkpointFile), n, run);
+                    } catch (IOException e) {
+                        // The run can go on without the checkpoint
+                        e.printStackTrace();
+                    }
+                }
+
+                if (measured) {
+                    report(evolution.metrics(n - 1, bestFitness, avgFitness, searchStart - generationStart,
+                            loggingStart - searchStart, breedingStart - loggingStart,
+                            System.nanoTime() - generationStart, loggingAllocated));
+                }
+            } while (!stopped);
+
+            return evolution.finish(run, n);
+        }
+    }
+
+    /**
+     * Evolve nIslands populations, each on its own thread. The islands hand the statistics of each generation to the
+     * calling thread, which combines them and writes the logs so that islands never wait on the disk.
+     *
+     * @param run run holding the termination criteria and best schedule
+     * @param csv CSV log, or null
+     * @param binaryLog binary log, or null
+     * @return evaluated final generation of each island
+     */
+    private Population[] evolveIslands(AnytimeRun run, StreamingCSVWriter csv, BinaryGenerationLog binaryLog) {
+        boolean measured = !listeners.isEmpty() || GenerationEvent.isRecording();
+        boolean recorded = measured || csv != null || binaryLog != null;
+
+        // Migrants waiting to be taken in by each island, one slot per sending island. A newer set of migrants
+        // replaces one that has not been taken in yet.
+        List<AtomicReferenceArray<int[]>> inboxes = new ArrayList<>(nIslands);
+        List<BlockingQueue<IslandGeneration>> records = new ArrayList<>(nIslands);
+        for (int i = 0; i < nIslands; i++) {
+            inboxes.add(new AtomicReferenceArray<>(nIslands));
+            records.add(new LinkedBlockingQueue<>());
+        }
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Callable<Population>> islands = new ArrayList<>(nIslands);
+        for (int i = 0; i < nIslands; i++) {
+            int island = i;
+            long islandSeed = seeds.nextLong();
+            islands.add(() -> {
+                try {
+                    return evolveIsland(island, islandSeed, run, measured, recorded, inboxes, records.get(island));
+                } catch (RuntimeException | Error e) {
+                    // Stop the other islands, the run has failed
+                    run.cancel();
+                    throw e;
+                } finally {
+                    records.get(island).add(IslandGeneration.END);
+                }
+            });
+        }
+
+        ExecutorService islandPool = Executors.newFixedThreadPool(nIslands);
+        try {
+            List<Future<Population>> futures = new ArrayList<>(nIslands);
+            for (Callable<Population> island : islands) futures.add(islandPool.submit(island));
+
+            // Combine and log the generations in order as the islands finish them, until the first island stops
+            IslandGeneration[] generation = new IslandGeneration[nIslands];
+            GenerationMetrics[] metrics = new GenerationMetrics[nIslands];
+            consume:
+            for (int n = 0; recorded; n++) {
+                for (int i = 0; i < nIslands; i++) {
+                    generation[i] = records.get(i).take();
+                    if (generation[i] == IslandGeneration.END) break consume;
+                }
+
+                IslandGeneration best = generation[0];
+                double avgFitness = 0;
+                for (int i = 0; i < nIslands; i++) {
+                    if (generation[i].bestFitness < best.bestFitness) best = generation[i];
+                    avgFitness += generation[i].avgFitness / nIslands;
+                    metrics[i] = generation[i].metrics;
+                }
+
+                log(csv, binaryLog, best.bestFitness, avgFitness, best.bestSchedule, 0);
+                if (measured) report(combineMetrics(n, best.bestFitness, avgFitness, metrics));
+            }
+
+            Population[] result = new Population[nIslands];
+            for (int i = 0; i < nIslands; i++) result[i] = futures.get(i).get();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for islands", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Island failed", e.getCause());
+        } finally {
+            islandPool.shutdownNow();
+        }
     }
 
     /**
-     * Run the given number of generations of the genetic algorithm and return the final generation.
+     * Evolve the population of a single island, exchanging migrants with the other islands.
      *
-     * @param nGenerations number of generations to run
-     */
-    public int[][] run(int nGenerations) {
-        // Create CSV writer and construct header
-        CSVWriter csv = new CSVWriter("output.csv");
-        String[] headerLine = new String[nTasks + 2];
-        headerLine[0] = "BestFitness";
-        headerLine[1] = "AvgFitness";
-        for (int i = 0; i < nTasks; i++) headerLine[i + 2] = tasks[i].getTitle();
-        csv.addLine(headerLine);
-
-        int[][] currentGen = new int[GEN_SIZE][nTasks];
-
-        // TODO: prevent duplicate individuals
-        for (int i = 0; i < GEN_SIZE; i++) {
-            currentGen[i] = randomSchedule();
-        }
-
-        int n = 0;
-        do {
-            // Calculate all fitnesses
-            int[] fitnesses = new int[GEN_SIZE];
-            for (int i = 0; i < GEN_SIZE; i++) fitnesses[i] = fitness(currentGen[i]);
-
-            // Find best fitness
-            int bestFitness = fitnesses[0];
-            int bestIndex = 0;
-            for (int i = 1; i < GEN_SIZE; i++) {
-                if (fitnesses[i] < bestFitness) {
-                    bestFitness = fitnesses[i];
-                    bestIndex = i;
+     * @param island index of the island
+     * @param islandSeed seed of the island's random stream
+     * @param run run holding the termination criteria and best schedule, shared by all islands
+     * @param measured true to time the phases of each generation
+     * @param recorded true to hand the statistics of each generation to the calling thread
+     * @param inboxes migrants waiting to be taken in by each island
+     * @param records queue to hand the statistics of each generation to
+     * @return evaluated final generation of the island
+     */
+    private Population evolveIsland(int island, long islandSeed, AnytimeRun run, boolean measured, boolean recorded,
+                                 List<AtomicReferenceArray<int[]>> inboxes, BlockingQueue<IslandGeneration> records) {
+        int[] neighbors = topology.neighbors(island, nIslands);
+        AtomicReferenceArray<int[]> inbox = inboxes.get(island);
+
+        try (Evolution evolution = new Evolution(islandSeed, 1)) {
+            boolean stopped = false;
+            int n;
+            for (n = 0; !stopped; n++) {
+                evolution.resetMetrics(measured);
+                long generationStart = measured ? System.nanoTime() : 0;
+
+                // Calculate all fitnesses, then replace the worst individuals with any migrants that have arrived
+                evolution.evaluate();
+                for (int from = 0; from < nIslands; from++) {
+                    int[] migrants = inbox.getAndSet(from, null);
+                    if (migrants != null) evolution.immigrate(migrants);
+                }
+                long searchStart = measured ? System.nanoTime() : 0;
+                evolution.localSearch();
+                Population current = evolution.current;
+
+                long loggingStart = measured ? System.nanoTime() : 0;
+                long loggingAllocated = measured ? allocatedBytes() : 0;
+
+                int bestIndex = current.best();
+                run.offer(current.fitnesses[bestIndex], current.breakdowns[bestIndex], current.genes,
+                        current.offset(bestIndex), nTasks, n);
+
+                IslandGeneration generation = null;
+                if (recorded) {
+                    generation = new IslandGeneration(current.fitnesses[bestIndex], current.averageFitness(),
+                            current.schedule(bestIndex));
+                }
+
+                // Send copies of the best individuals to the neighbors
+                if (nMigrants > 0 && (n + 1) % migrationInterval == 0) {
+                    for (int to : neighbors) inboxes.get(to).set(island, evolution.emigrants(nMigrants));
+                }
+
+                long breedingStart = measured ? System.nanoTime() : 0;
+                loggingAllocated = measured ? allocatedBytes() - loggingAllocated : 0;
+
+                // Generate next generation, unless the run stops early and the evaluated generation is returned
+                stopped = run.shouldStop(n + 1);
+                if (!stopped || run.getTerminationReason() == TerminationReason.GENERATIONS) evolution.breed();
+
+                if (recorded) {
+                    if (measured) {
+                        generation.metrics = evolution.metrics(n, generation.bestFitness, generation.avgFitness,
+                                searchStart - generationStart, loggingStart - searchStart,
+                                breedingStart - loggingStart, System.nanoTime() - generationStart, loggingAllocated);
+                    }
+                    records.add(generation);
                 }
             }
 
-            // Calculate average fitness
-            int fitnessSum = 0;
-            for (int i = 0; i < GEN_SIZE; i++) fitnessSum += fitnesses[i];
-            double avgFitness = (double) fitnessSum / GEN_SIZE;
+            return evolution.finish(run, n);
+        }
+    }
+
+    /**
+     * The statistics of one generation of an island, handed from the island to the thread writing the logs.
+     */
+    private static class IslandGeneration {
+        // Marks that an island has stopped and will not send any more generations
+        static final IslandGeneration END = new IslandGeneration(0, 0, null);
+
+        final int bestFitness;
+        final double avgFitness;
+        final int[] bestSchedule;
+        GenerationMetrics metrics;
+
+        IslandGeneration(int bestFitness, double avgFitness, int[] bestSchedule) {
+            this.bestFitness = bestFitness;
+            this.avgFitness = avgFitness;
+            this.bestSchedule = bestSchedule;
+        }
+    }
 
-            // Write fitness statistics and most fit schedule to log file
+    /**
+     * Write the statistics and most fit schedule of a generation to the logs.
+     *
+     * @param csv CSV log, or null
+     * @param binaryLog binary log, or null
+     * @param bestFitness best fitness in the generation
+     * @param avgFitness average fitness of the generation
+     * @param genes array containing the most fit schedule
+     * @param bestOffset offset of the most fit schedule in genes
+     */
+    private void log(StreamingCSVWriter csv, BinaryGenerationLog binaryLog, int bestFitness, double avgFitness,
+                     int[] genes, int bestOffset) {
+        if (csv != null) {
             String[] newLine = new String[nTasks + 2];
             newLine[0] = String.valueOf(bestFitness);
             newLine[1] = String.valueOf(avgFitness);
-            for (int i = 0; i < nTasks; i++) newLine[i + 2] = String.valueOf(currentGen[bestIndex][i]);
+            for (int i = 0; i < nTasks; i++) newLine[i + 2] = String.valueOf(genes[bestOffset + i]);
             csv.addLine(newLine);
+        }
+        if (binaryLog != null) binaryLog.append(bestFitness, avgFitness, genes, bestOffset);
+    }
+
+    /**
+     * Hand the metrics of a generation to the listeners and record them as a flight recorder event.
+     *
+     * @param metrics metrics of the generation
+     */
+    private void report(GenerationMetrics metrics) {
+        for (GenerationListener listener : listeners) listener.generationCompleted(metrics);
+        GenerationEvent.emit(metrics);
+    }
+
+    /**
+     * Combine the metrics of the same generation of every island. Times are summed over the islands except for the
+     * total time, which is the time of the slowest island.
+     *
+     * @param generation index of the generation
+     * @param bestFitness best fitness of all islands
+     * @param avgFitness average fitness of all islands
+     * @param metrics metrics of each island
+     * @return combined metrics
+     */
+    private static GenerationMetrics combineMetrics(int generation, int bestFitness, double avgFitness,
+                                                    GenerationMetrics[] metrics) {
+        int evaluations = 0;
+        long evaluation = 0, localSearch = 0, selection = 0, crossover = 0, mutation = 0, logging = 0, total = 0;
+        long allocated = 0;
+        long hits = 0, misses = 0;
+        for (GenerationMetrics m : metrics) {
+            evaluations += m.getEvaluations();
+            evaluation += m.getEvaluationNanos();
+            localSearch += m.getLocalSearchNanos();
+            selection += m.getSelectionNanos();
+            crossover += m.getCrossoverNanos();
+            mutation += m.getMutationNanos();
+            logging += m.getLoggingNanos();
+            total = Math.max(total, m.getTotalNanos());
+            allocated = allocated < 0 || m.getAllocatedBytes() < 0 ? -1 : allocated + m.getAllocatedBytes();
+            hits += m.getCacheHits();
+            misses += m.getCacheMisses();
+        }
+
+        return new GenerationMetrics(generation, bestFitness, avgFitness, evaluations, evaluation, localSearch,
+                selection, crossover, mutation, logging, total, allocated, hits, misses);
+    }
+
+    /**
+     * The state of a single run of the genetic algorithm.
+     *
+     * Two populations are allocated up front and swapped every generation: children are bred into the buffer of the
+     * previous generation, which is no longer needed once its children have been evaluated. Together with a fitness
+     * evaluator and random stream per worker this means no memory is allocated from one generation to the next.
+     */
+    private class Evolution implements AutoCloseable {
+        private final int nWorkers;
+        private final SplitMix[] randoms;
+        private final FitnessEvaluator[] evaluators;
+        private final ExecutorService pool;
+
+        // Work done by each worker in each phase, created once so that running a phase does not allocate
+        private final IntConsumer evaluateChunk = this::evaluateChunk;
+        private final IntConsumer breedChunk = this::breedChunk;
+        private final IntConsumer searchChunk = this::searchChunk;
+
+        // Generation being evolved and the generation before it
+        private Population current;
+        private Population previous;
+
+        // Number of individuals in each generation, and how many of them survive into the next generation
+        private final int size;
+        private final int nSurvivors;
+        // Individuals ordered by fitness as (fitness << 32 | index), and the indices of the surviving individuals
+        private final long[] ranking;
+        private final int[] survivors;
+        // Parents are selected from the survivors instead of the whole generation
+        private final boolean selectSurvivors;
+        // Whether the current generation has been evaluated since it was bred
+        private boolean evaluated = false;
+
+        // Version of the reserved times the worker evaluators were copied at
+        private int evaluatedVersion;
+
+        // Fitnesses of recently evaluated schedules or null, and the hash of each individual of the current generation
+        private final FitnessCache cache;
+        private final long[] hashes;
+
+        // Number of best individuals improved by local search and the moves they may try, the reserved times tasks
+        // are slid next to, and the local search of each worker
+        private final int nSearched;
+        private final int searchBudget;
+        private ReservedTime[] searchReserved;
+        private final LocalSearch[] searches;
+
+        // Evaluation workers or null, and the individuals sent to them because they were not in the cache
+        private final RemoteEvaluator remote;
+        private final int[] remoteIndividuals;
+
+        // Buffer checkpoints are written from, kept between checkpoints
+        private ByteBuffer checkpointBuffer;
+
+        // Whether the current generation is being timed, and the time, memory and evaluator calls used by each worker
+        // in it. Evaluations done remotely or on the calling thread are counted for worker 0.
+        private boolean measured = false;
+        private final int[] evaluations;
+        private final long[] selectionNanos;
+        private final long[] crossoverNanos;
+        private final long[] mutationNanos;
+        private final long[] allocated;
+        // Cache counters at the start of the generation
+        private long startHits;
+        private long startMisses;
+
+        /**
+         * Set up the workers and generate a random initial generation.
+         * @param seed seed the random stream of each worker is split off
+         * @param nWorkers number of workers evaluating and breeding each generation
+         */
+        Evolution(long seed, int nWorkers) {
+            this.nWorkers = nWorkers;
+
+            // Split one random stream off the seed for each worker
+            SplitMix root = new SplitMix(seed);
+            this.randoms = new SplitMix[nWorkers];
+            for (int w = 0; w < nWorkers; w++) randoms[w] = root.split();
+
+            this.evaluators = new FitnessEvaluator[nWorkers];
+            this.remote = remoteWorkers == null ? null : new RemoteEvaluator(remoteWorkers, remoteBatchSize,
+                    remoteTimeout);
+            reservedLock.readLock().lock();
+            try {
+                for (int w = 0; w < nWorkers; w++) evaluators[w] = evaluator.copy();
+                if (remote != null) sendProblem();
+                this.evaluatedVersion = reservedVersion;
+            } finally {
+                reservedLock.readLock().unlock();
+            }
+
+            this.pool = nWorkers > 1 ? new ForkJoinPool(nWorkers) : null;
+            this.cache = cacheCapacity > 0 ? new FitnessCache(cacheCapacity, nTasks) : null;
+
+            this.selectionNanos = new long[nWorkers];
+            this.crossoverNanos = new long[nWorkers];
+            this.mutationNanos = new long[nWorkers];
+            this.allocated = new long[nWorkers];
+            this.evaluations = new int[nWorkers];
+
+            switch (replacement) {
+                case ELITIST:
+                    this.size = GEN_SIZE;
+                    this.nSurvivors = replacementCount;
+                    break;
+                case STEADY_STATE:
+                    this.size = GEN_SIZE;
+                    this.nSurvivors = GEN_SIZE - replacementCount;
+                    break;
+                case MU_PLUS_LAMBDA:
+                    this.size = GEN_SIZE + replacementCount;
+                    this.nSurvivors = GEN_SIZE;
+                    break;
+                default:
+                    this.size = GEN_SIZE;
+                    this.nSurvivors = 0;
+            }
+            this.selectSurvivors = replacement == ReplacementStrategy.MU_PLUS_LAMBDA;
+            this.ranking = new long[size];
+            this.survivors = new int[nSurvivors];
+            this.hashes = new long[size];
+            this.remoteIndividuals = new int[remote == null ? 0 : size];
+
+            this.nSearched = Math.min(localSearchSize, size);
+            this.searchBudget = localSearchBudget;
+            this.searches = new LocalSearch[nSearched > 0 ? nWorkers : 0];
+            for (int w = 0; w < searches.length; w++) {
+                searches[w] = new LocalSearch(durations, maxTime, Scheduler::totalFitness);
+            }
+
+            this.current = new Population(size, nTasks);
+            this.previous = new Population(size, nTasks);
+
+            int[] warm = warmStart;
+            forEachWorker(pool, nWorkers, w -> {
+                for (int i = chunkStart(w, nWorkers, size); i < chunkStart(w + 1, nWorkers, size); i++) {
+                    if (warm == null) randomSchedule(current.genes, current.offset(i), randoms[w]);
+                    else warmSchedule(warm, current.genes, current.offset(i), i > 0, randoms[w]);
+                }
+            });
+        }
+
+        /**
+         * Calculate the fitness of every individual in the current generation that did not survive from the previous
+         * generation.
+         */
+        void evaluate() {
+            reservedLock.readLock().lock();
+            try {
+                if (evaluatedVersion != reservedVersion) {
+                    // The fitness function has changed, so the previous generation's breakdowns can not be updated
+                    for (int w = 0; w < nWorkers; w++) evaluators[w] = evaluator.copy();
+                    if (remote != null) sendProblem();
+                    if (cache != null) cache.clear();
+                    current.hasParents = false;
+                    current.nSurvivors = 0;
+                    evaluatedVersion = reservedVersion;
+                }
+
+                evaluated = true;
+                if (remote == null) forEachWorker(pool, nWorkers, evaluateChunk);
+                else evaluateRemotely();
+
+                // Store the evaluated schedules in order so that the cache evolves the same way on every run
+                if (cache != null) {
+                    for (int i = current.nSurvivors; i < size; i++) {
+                        cache.put(hashes[i], current.genes, current.offset(i), current.breakdowns[i]);
+                    }
+                }
+            } finally {
+                reservedLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Replace the worst individuals of the evaluated current generation with migrants from another island. The
+         * generation is ranked once, so each migrant replaces a different individual, and the k-th migrant replaces
+         * the k-th worst.
+         * @param migrants schedules of the migrants, one after the other
+         */
+        void immigrate(int[] migrants) {
+            reservedLock.readLock().lock();
+            try {
+                for (int i = 0; i < size; i++) ranking[i] = (long) current.fitnesses[i] << 32 | i;
+                Arrays.sort(ranking);
+
+                int nMigrants = Math.min(migrants.length / nTasks, size);
+                for (int k = 0; k < nMigrants; k++) {
+                    int i = (int) ranking[size - 1 - k];
+                    int offset = current.offset(i);
+                    System.arraycopy(migrants, k * nTasks, current.genes, offset, nTasks);
+
+                    long hash = cache == null ? 0 : FitnessCache.hash(current.genes, offset, nTasks);
+                    if (cache == null || !cache.get(hash, current.genes, offset, current.breakdowns[i])) {
+                        evaluators[0].evaluate(current.genes, offset, current.breakdowns[i]);
+                        evaluations[0]++;
+                        if (cache != null) cache.put(hash, current.genes, offset, current.breakdowns[i]);
+                    }
+                    current.fitnesses[i] = totalFitness(current.breakdowns[i]);
+                }
+            } finally {
+                reservedLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Improve the best individuals of the evaluated current generation by local search, if enabled. The individuals
+         * are improved in parallel, each with an equal share of the budget, so the result does not depend on the number
+         * of workers.
+         */
+        void localSearch() {
+            if (nSearched == 0) return;
+
+            reservedLock.readLock().lock();
+            try {
+                for (int i = 0; i < size; i++) ranking[i] = (long) current.fitnesses[i] << 32 | i;
+                Arrays.sort(ranking);
+                searchReserved = reservedTimes;
+
+                forEachWorker(pool, nWorkers, searchChunk);
+            } finally {
+                reservedLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Save the state of the run to a checkpoint file. Must be called between breeding a generation and
+         * evaluating it.
+         * @param file checkpoint file
+         * @param generation number of generations done
+         * @param run run holding the best schedule
+         * @throws IOException if the file could not be written
+         */
+        void checkpoint(Path file, int generation, AnytimeRun run) throws IOException {
+            checkpointBuffer = CheckpointFile.save(file, checkpointBuffer, generation, run, randoms, current, cache);
+        }
+
+        /**
+         * Restore the state of a run from a checkpoint, replacing the initial generation.
+         * @param checkpoint contents of the checkpoint after its header
+         * @param run run to restore the best schedule of
+         * @return number of generations done before the checkpoint
+         */
+        int restore(ByteBuffer checkpoint, AnytimeRun run) {
+            reservedLock.readLock().lock();
+            try {
+                return CheckpointFile.load(checkpoint, randoms, current, cache, evaluators[0], Scheduler::totalFitness,
+                        run);
+            } finally {
+                reservedLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Evaluate the current generation if it was bred after the last evaluation, so that the result of the run has
+         * the fitness of every individual, and offer its best individual to the run.
+         * @param run finished run
+         * @param generation index of the current generation
+         * @return evaluated current generation
+         */
+        Population finish(AnytimeRun run, int generation) {
+            if (!evaluated) {
+                evaluate();
+                int best = current.best();
+                run.offer(current.fitnesses[best], current.breakdowns[best], current.genes, current.offset(best),
+                        nTasks, generation);
+            }
+            return current;
+        }
+
+        /**
+         * Copy the best individuals of the evaluated current generation to send to another island.
+         * @param count number of individuals to copy
+         * @return schedules of the individuals, one after the other
+         */
+        int[] emigrants(int count) {
+            int[] migrants = new int[count * nTasks];
+            boolean[] chosen = new boolean[size];
+
+            for (int m = 0; m < count; m++) {
+                int best = -1;
+                for (int i = 0; i < size; i++) {
+                    if (!chosen[i] && (best < 0 || current.fitnesses[i] < current.fitnesses[best])) best = i;
+                }
+                chosen[best] = true;
+                System.arraycopy(current.genes, current.offset(best), migrants, m * nTasks, nTasks);
+            }
+
+            return migrants;
+        }
+
+        /**
+         * Clear the metrics of the workers before a generation.
+         * @param measured true to time the phases of the generation
+         */
+        void resetMetrics(boolean measured) {
+            this.measured = measured;
+            Arrays.fill(selectionNanos, 0);
+            Arrays.fill(crossoverNanos, 0);
+            Arrays.fill(mutationNanos, 0);
+            Arrays.fill(allocated, 0);
+            Arrays.fill(evaluations, 0);
+            if (cache != null) {
+                startHits = cache.getHits();
+                startMisses = cache.getMisses();
+            }
+        }
+
+        /**
+         * Combine the metrics of the workers with the wall-clock times measured by the run.
+         */
+        GenerationMetrics metrics(int generation, int bestFitness, double avgFitness, long evaluationNanos,
+                                  long localSearchNanos, long loggingNanos, long totalNanos, long loggingAllocated) {
+            long selection = 0, crossover = 0, mutation = 0, bytes = loggingAllocated;
+            int evaluatorCalls = 0;
+            for (int w = 0; w < nWorkers; w++) {
+                evaluatorCalls += evaluations[w];
+                selection += selectionNanos[w];
+                crossover += crossoverNanos[w];
+                mutation += mutationNanos[w];
+                bytes += allocated[w];
+            }
+
+            long hits = cache == null ? 0 : cache.getHits() - startHits;
+            long misses = cache == null ? 0 : cache.getMisses() - startMisses;
+
+            return new GenerationMetrics(generation, bestFitness, avgFitness, evaluatorCalls, evaluationNanos,
+                    localSearchNanos, selection, crossover, mutation, loggingNanos, totalNanos,
+                    ALLOCATION_COUNTER == null ? -1 : bytes, hits, misses);
+        }
+
+        /**
+         * Breed the next generation from the current generation, which then becomes the previous generation. The
+         * surviving individuals are copied to the start of the next generation and children fill the rest.
+         */
+        void breed() {
+            Population next = previous;
+
+            if (nSurvivors > 0) {
+                for (int i = 0; i < size; i++) ranking[i] = (long) current.fitnesses[i] << 32 | i;
+                Arrays.sort(ranking);
+
+                for (int s = 0; s < nSurvivors; s++) {
+                    int i = (int) ranking[s];
+                    survivors[s] = i;
+                    System.arraycopy(current.genes, current.offset(i), next.genes, next.offset(s), nTasks);
+                    next.breakdowns[s].copyFrom(current.breakdowns[i]);
+                    next.fitnesses[s] = current.fitnesses[i];
+                }
+            }
+            next.nSurvivors = nSurvivors;
+
+            forEachWorker(pool, nWorkers, breedChunk);
+
+            Population bred = previous;
+            previous = current;
+            current = bred;
+            current.hasParents = true;
+            evaluated = false;
+        }
+
+        // Evaluate a worker's chunk of the current generation. Children are evaluated by updating the breakdown of the
+        // parent they share the most start times with.
+        private void evaluateChunk(int w) {
+            FitnessEvaluator workerEvaluator = evaluators[w];
+            int[] genes = current.genes;
+            long startAllocated = measured ? allocatedBytes() : 0;
+
+            // Survivors already have their fitness
+            int first = current.nSurvivors;
+            int start = first + chunkStart(w, nWorkers, size - first);
+            int end = first + chunkStart(w + 1, nWorkers, size - first);
+            int evaluated = 0;
+
+            for (int i = start; i < end; i++) {
+                int offset = current.offset(i);
+
+                if (cache != null) {
+                    hashes[i] = FitnessCache.hash(genes, offset, nTasks);
+                    if (cache.get(hashes[i], genes, offset, current.breakdowns[i])) {
+                        current.fitnesses[i] = totalFitness(current.breakdowns[i]);
+                        continue;
+                    }
+                }
+
+                evaluated++;
+                if (!current.hasParents) {
+                    workerEvaluator.evaluate(genes, offset, current.breakdowns[i]);
+                } else {
+                    int p1 = current.parents1[i];
+                    int p2 = current.parents2[i];
+                    int changes1 = workerEvaluator.countChanges(genes, offset, previous.genes, previous.offset(p1));
+                    int changes2 = workerEvaluator.countChanges(genes, offset, previous.genes, previous.offset(p2));
+                    int parent = changes1 <= changes2 ? p1 : p2;
+                    workerEvaluator.update(genes, offset, previous.genes, previous.offset(parent),
+                            previous.breakdowns[parent], current.breakdowns[i]);
+                }
 
-            // Generate next generation
-            int[][] nextGen = new int[GEN_SIZE][nTasks];
-            for (int i = 0; i < GEN_SIZE / 2; i++) {
+                current.fitnesses[i] = totalFitness(current.breakdowns[i]);
+            }
+
+            evaluations[w] += evaluated;
+            if (measured) allocated[w] += allocatedBytes() - startAllocated;
+        }
+
+        // Evaluate the individuals that are not in the cache on the evaluation workers. Workers always evaluate from
+        // scratch, since sending the parents would cost more than the update saves.
+        private void evaluateRemotely() {
+            int[] genes = current.genes;
+            int nRemote = 0;
+
+            for (int i = current.nSurvivors; i < size; i++) {
+                if (cache != null) {
+                    hashes[i] = FitnessCache.hash(genes, current.offset(i), nTasks);
+                    if (cache.get(hashes[i], genes, current.offset(i), current.breakdowns[i])) {
+                        current.fitnesses[i] = totalFitness(current.breakdowns[i]);
+                        continue;
+                    }
+                }
+                remoteIndividuals[nRemote++] = i;
+            }
+
+            remote.evaluate(genes, remoteIndividuals, nRemote, current.breakdowns, evaluators[0]);
+            evaluations[0] += nRemote;
+            for (int k = 0; k < nRemote; k++) {
+                int i = remoteIndividuals[k];
+                current.fitnesses[i] = totalFitness(current.breakdowns[i]);
+            }
+        }
+
+        // Send the tasks and reserved times to the evaluation workers. Must hold the read lock.
+        private void sendProblem() {
+            remote.setProblem(maxTime, durations, priorities, reservedTimes, overlapMethod, indexType);
+        }
+
+        // Breed a worker's chunk of child pairs into the previous generation's buffer after the survivors. If the
+        // number of children is odd, the second child of the last pair is discarded.
+        private void breedChunk(int w) {
+            RandomGenerator random = randoms[w];
+            Population next = previous;
+            int[] candidates = selectSurvivors ? survivors : null;
+            int nCandidates = selectSurvivors ? nSurvivors : size;
+            int nPairs = (size - nSurvivors + 1) / 2;
+            long startAllocated = measured ? allocatedBytes() : 0;
+            long time = measured ? System.nanoTime() : 0;
+
+            for (int i = chunkStart(w, nWorkers, nPairs); i < chunkStart(w + 1, nWorkers, nPairs); i++) {
                 // Select two parents
-                int[] p1 = currentGen[select(fitnesses)];
-                int[] p2 = currentGen[select(fitnesses)];
+                int p1 = select(current.fitnesses, candidates, nCandidates, random);
+                int p2 = select(current.fitnesses, candidates, nCandidates, random);
+                int c1 = nSurvivors + i*2;
+                int c2 = c1 + 1 < size ? c1 + 1 : -1;
+                next.parents1[c1] = p1;
+                next.parents2[c1] = p2;
+                if (c2 >= 0) {
+                    next.parents1[c2] = p1;
+                    next.parents2[c2] = p2;
+                }
+                if (measured) time = lap(selectionNanos, w, time);
 
                 // Cross them to get two children
-                int[][] children = crossover(p1, p2);
+                crossover(current.genes, current.offset(p1), current.offset(p2),
+                        next.genes, next.offset(c1), c2 >= 0 ? next.offset(c2) : -1, random);
+                if (measured) time = lap(crossoverNanos, w, time);
 
-                // Mutate children and add to next generation
-                nextGen[i*2] = mutate(children[0]);
-                nextGen[i*2 + 1] = mutate(children[1]);
+                // Mutate children
+                mutate(next.genes, next.offset(c1), random);
+                if (c2 >= 0) mutate(next.genes, next.offset(c2), random);
+                if (duplicatePolicy != DuplicatePolicy.ALLOW) {
+                    removeDuplicate(next.genes, next.offset(c1), random);
+                    if (c2 >= 0) removeDuplicate(next.genes, next.offset(c2), random);
+                }
+                if (measured) time = lap(mutationNanos, w, time);
+            }
+
+            if (measured) allocated[w] += allocatedBytes() - startAllocated;
+        }
+
+        // Improve a worker's chunk of the best individuals by local search
+        private void searchChunk(int w) {
+            long startAllocated = measured ? allocatedBytes() : 0;
+
+            for (int k = chunkStart(w, nWorkers, nSearched); k < chunkStart(w + 1, nWorkers, nSearched); k++) {
+                int budget = searchBudget / nSearched + (k < searchBudget % nSearched ? 1 : 0);
+                int i = (int) ranking[k];
+                long before = searches[w].getEvaluations();
+                current.fitnesses[i] = searches[w].climb(evaluators[w], searchReserved, current.genes,
+                        current.offset(i), current.breakdowns[i], current.fitnesses[i], budget);
+                evaluations[w] += (int) (searches[w].getEvaluations() - before);
             }
 
-            currentGen = nextGen;
+            if (measured) allocated[w] += allocatedBytes() - startAllocated;
+        }
+
+        // Replace or mutate a schedule while it is in the cache, depending on the duplicate policy
+        private void removeDuplicate(int[] genes, int offset, RandomGenerator random) {
+            for (int attempt = 0; attempt < MAX_REMUTATIONS; attempt++) {
+                if (!cache.contains(FitnessCache.hash(genes, offset, nTasks), genes, offset)) return;
+
+                if (duplicatePolicy == DuplicatePolicy.REJECT) randomSchedule(genes, offset, random);
+                else mutate(genes, offset, random);
+            }
+        }
+
+        // Add the time since start to a worker's total and return the current time
+        private long lap(long[] totals, int w, long start) {
+            long now = System.nanoTime();
+            totals[w] += now - start;
+            return now;
+        }
+
+        /**
+         * Shut down the worker pool.
+         */
+        @Override
+        public void close() {
+            if (pool != null) pool.shutdown();
+            if (remote != null) remote.close();
+        }
+    }
+
+    /**
+     * Get the allocation counter of the JVM if it supports counting the bytes allocated by each thread.
+     *
+     * @return allocation counter, or null if not supported
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        if (!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled()) return null;
+        return counter;
+    }
+
+    /**
+     * Get the number of bytes allocated by the calling thread so far.
+     *
+     * @return allocated bytes, or 0 if not supported
+     */
+    private static long allocatedBytes() {
+        return ALLOCATION_COUNTER == null ? 0 : ALLOCATION_COUNTER.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Run a piece of work once for every worker. The work is run on the pool if there is one, otherwise it is run on
+     * the calling thread. Returns once all workers are done.
+     *
+     * @param pool pool to run the work on, or null to run on the calling thread
+     * @param nWorkers number of workers
+     * @param work work to run, given the index of the worker
+     */
+    private static void forEachWorker(ExecutorService pool, int nWorkers, IntConsumer work) {
+        if (pool == null) {
+            for (int w = 0; w < nWorkers; w++) work.accept(w);
+            return;
+        }
 
-            n++;
-        } while (n < nGenerations); // TODO: detect when optimal solution has been found
+        List<Callable<Void>> jobs = new ArrayList<>(nWorkers);
+        for (int w = 0; w < nWorkers; w++) {
+            int worker = w;
+            jobs.add(() -> {
+                work.accept(worker);
+                return null;
+            });
+        }
 
         try {
-            csv.write();
-        } catch (IOException e) {
-            e.printStackTrace();
+            for (Future<Void> job : pool.invokeAll(jobs)) job.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for workers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed", e.getCause());
         }
+    }
 
-        return currentGen;
+    /**
+     * Get the first index of a worker's chunk when n items are split between all workers.
+     *
+     * @param worker index of the worker, or nWorkers to get the end of the last chunk
+     * @param nWorkers number of workers
+     * @param n number of items to split
+     * @return first index of the worker's chunk
+     */
+    private static int chunkStart(int worker, int nWorkers, int n) {
+        return (int) ((long) n * worker / nWorkers);
     }
 
     /**
@@ -151,13 +1687,16 @@ public class Scheduler {
      * Returns the index of the selected individual based on an array of fitnesses
      *
      * @param fitnesses array of fitnesses for the schedule on which selection is being performed
+     * @param candidates indices of the individuals to select from, or null to select from the first n individuals
+     * @param n number of individuals to select from
+     * @param random random stream of the calling worker
      * @return the index of the selected schedule
      */
-    private int select(int[] fitnesses) {
-        int best = random.nextInt(GEN_SIZE);
+    private int select(int[] fitnesses, int[] candidates, int n, RandomGenerator random) {
+        int best = candidates == null ? random.nextInt(n) : candidates[random.nextInt(n)];
 
         for (int i = 1; i < SELECTION_T; i++) {
-            int other = random.nextInt(GEN_SIZE);
+            int other = candidates == null ? random.nextInt(n) : candidates[random.nextInt(n)];
             // By our definition of the fitness function, lower values are better
             if (fitnesses[other] < fitnesses[best])
                 best = other;
@@ -167,16 +1706,17 @@ public class Scheduler {
     }
 
     /**
-     * Perform two-point crossover on two parent schedules and return the two generated children.
+     * Perform two-point crossover on two parent schedules and write the two generated children.
      *
-     * @param p1 first parent
-     * @param p2 second parent
-     * @return two generated child schedules
+     * @param parents array containing the parent schedules
+     * @param p1 offset of the first parent in parents
+     * @param p2 offset of the second parent in parents
+     * @param children array to write the child schedules to
+     * @param c1 offset of the first child in children
+     * @param c2 offset of the second child in children, or -1 to only write the first child
+     * @param random random stream of the calling worker
      */
-    private int[][] crossover(int[] p1, int[] p2) {
-        int[] c1 = new int[nTasks];
-        int[] c2 = new int[nTasks];
-
+    private void crossover(int[] parents, int p1, int p2, int[] children, int c1, int c2, RandomGenerator random) {
         // Select cross point
         int crossPoint1 = random.nextInt(nTasks);
         int crossPoint2 = random.nextInt(nTasks - crossPoint1) + crossPoint1;
@@ -185,41 +1725,43 @@ public class Scheduler {
         for (int i = 0; i < nTasks; i++) {
             // Swap all values after the cross point
             if (i >= crossPoint1 && i <= crossPoint2) {
-                c1[i] = p2[i];
-                c2[i] = p1[i];
+                children[c1 + i] = parents[p2 + i];
+                if (c2 >= 0) children[c2 + i] = parents[p1 + i];
             } else {
-                c1[i] = p1[i];
-                c2[i] = p2[i];
+                children[c1 + i] = parents[p1 + i];
+                if (c2 >= 0) children[c2 + i] = parents[p2 + i];
             }
         }
-
-        return new int[][] {c1, c2};
     }
 
     /**
-     * Perform mutation on a schedule. Mutations are normally distributed with standard deviation MUTATION_STDDEV and
-     * occur on each value with MUTATION_P probability.
+     * Perform mutation on a schedule in place. Mutations are normally distributed with standard deviation
+     * MUTATION_STDDEV and occur on each value with MUTATION_P probability. With constraint-aware mutation, tasks are
+     * moved within the free gaps they fit into, with the distance counted in free time.
      *
-     * @param original schedule to mutate
-     * @return mutated schedule
+     * @param genes array containing the schedule to mutate
+     * @param offset offset of the schedule in genes
+     * @param random random stream of the calling worker
      */
-    private int[] mutate(int[] original) {
-        int[] mutated = new int[nTasks];
-
-        for (int i = 0; i < nTasks; i++) {
-            mutated[i] = original[i];
+    private void mutate(int[] genes, int offset, RandomGenerator random) {
+        FreeSlotIndex slots = freeSlots;
+        for (int i = offset; i < offset + nTasks; i++) {
             // MUTATION_P chance of a mutation occurring
             if (random.nextDouble() <= MUTATION_P) {
+                if (slots != null && slots.fits(i - offset)) {
+                    // Normally distributed move measured in free time, skipping over the reserved times
+                    genes[i] = slots.shift(i - offset, genes[i], (int) (random.nextGaussian() * MUTATION_STDDEV));
+                    continue;
+                }
+
                 int dt = 0;
                 do {
                     // Normally distributed mutation with given standard deviation
                     dt = (int) (random.nextGaussian() * MUTATION_STDDEV);
-                } while (mutated[i] + dt < 0 || mutated[i] + dt > maxTime); // Loop until valid mutation is found
-                mutated[i] = mutated[i] + dt;
+                } while (genes[i] + dt < 0 || genes[i] + dt > maxTime); // Loop until valid mutation is found
+                genes[i] = genes[i] + dt;
             }
         }
-
-        return mutated;
     }
 
     /**
@@ -235,68 +1777,73 @@ public class Scheduler {
      * @return fitness of schedule where a lower value represents a more fit schedule.
      */
     public int fitness(int[] schedule) {
-        int fitness = 0;
-
-        Interval[] intervals = genTaskIntervals(schedule);
-
-        // Check for overlaps with other tasks
-        int taskOverlap = 0;
-        int priorityInversions = 0;
-
-        for (int i = 0; i < nTasks - 1; i++) {
-            for (int j = i + 1; j < nTasks; j++) {
-                // Calculate overlap between tasks i and j
-                taskOverlap += intervals[i].overlap(intervals[j]);
-
-                // Look for out of order tasks as defined by priority
-                if ((schedule[i] < schedule[j] && tasks[i].getPriority() > tasks[j].getPriority())
-                        || (schedule[i] > schedule[j] && tasks[i].getPriority() < tasks[j].getPriority())) {
-                    priorityInversions += Math.abs(tasks[i].getPriority() - tasks[j].getPriority());
-                }
-            }
+        FitnessBreakdown breakdown = new FitnessBreakdown(nTasks);
+        reservedLock.readLock().lock();
+        try {
+            evaluator.copy().evaluate(schedule, breakdown);
+        } finally {
+            reservedLock.readLock().unlock();
         }
-        fitness += taskOverlap * TASK_OVERLAP_WEIGHT;
-        fitness += priorityInversions * PRIORITY_WEIGHT;
+        return totalFitness(breakdown);
+    }
 
-        // Check for overlaps with reserved times
-        int reservedOverlap = 0;
-        for (int i = 0; i < nTasks; i++) {
-            reservedOverlap += reservedIntervals.getOverlap(intervals[i]);
-        }
-        fitness += reservedOverlap * RESERVED_TIME_OVERLAP_WEIGHT;
+    /**
+     * Calculate the fitness of a schedule from its fitness breakdown.
+     *
+     * @param breakdown fitness breakdown of the schedule
+     * @return fitness of schedule where a lower value represents a more fit schedule.
+     */
+    private static int totalFitness(FitnessBreakdown breakdown) {
+        int fitness = 0;
+
+        fitness += breakdown.getTaskOverlap() * TASK_OVERLAP_WEIGHT;
+        fitness += breakdown.getPriorityInversions() * PRIORITY_WEIGHT;
+        fitness += breakdown.getReservedOverlap() * RESERVED_TIME_OVERLAP_WEIGHT;
 
         return fitness;
     }
 
     /**
-     * Generate a schedule with random start times.
+     * Generate a schedule with random start times, drawn from the free gaps with constraint-aware mutation.
      *
-     * @return random schedule
+     * @param genes array to write the schedule to
+     * @param offset offset of the schedule in genes
+     * @param random random stream of the calling worker
      */
-    private int[] randomSchedule() {
-        int[] s = new int[nTasks];
-
+    private void randomSchedule(int[] genes, int offset, RandomGenerator random) {
         for (int i = 0; i < nTasks; i++) {
-            s[i] = random.nextInt(maxTime);
+            genes[offset + i] = randomStart(i, random);
         }
-
-        return s;
     }
 
     /**
-     * Get the task intervals for a schedule.
+     * Draw a random start time for a task. With constraint-aware mutation the start time is drawn from the free gaps
+     * the task fits into.
      *
-     * @param schedule schedule to generate intervals for
-     * @return array of intervals
+     * @param task index of the task
+     * @param random random stream of the calling worker
+     * @return start time
      */
-    private Interval[] genTaskIntervals(int[] schedule) {
-        Interval[] intervals = new Interval[nTasks];
+    private int randomStart(int task, RandomGenerator random) {
+        FreeSlotIndex slots = freeSlots;
+        if (slots != null && slots.fits(task)) return slots.sample(task, random);
+        return random.nextInt(maxTime);
+    }
 
+    /**
+     * Generate a schedule from a warm start schedule. Tasks without a start time get a random start time.
+     *
+     * @param warmStart start time of each task, -1 for tasks without one
+     * @param genes array to write the schedule to
+     * @param offset offset of the schedule in genes
+     * @param mutated true to mutate the schedule
+     * @param random random stream of the calling worker
+     */
+    private void warmSchedule(int[] warmStart, int[] genes, int offset, boolean mutated, RandomGenerator random) {
         for (int i = 0; i < nTasks; i++) {
-            intervals[i] = tasks[i].getInterval(schedule[i]);
+            genes[offset + i] = warmStart[i] >= 0 ? warmStart[i] : randomStart(i, random);
         }
-
-        return intervals;
+        if (mutated) mutate(genes, offset, random);
     }
 
     /**
@@ -306,15 +1853,23 @@ public class Scheduler {
      * @return array of intervals
      */
     public Interval[] genAllIntervals(int[] schedule) {
-        Interval[] intervals = new Interval[nTasks + reservedIntervals.getSize()];
+        List<Interval> intervals = new ArrayList<>(nTasks);
 
         for (int i = 0; i < nTasks; i++) {
-            intervals[i] = tasks[i].getInterval(schedule[i]);
+            intervals.add(new Interval(titles[i], schedule[i], schedule[i] + durations[i]));
         }
 
-        if (reservedIntervals.getSize() >= 0)
-            System.arraycopy(reservedIntervals.getIntervals(), 0, intervals, nTasks, reservedIntervals.getSize());
+        ReservedTime[] reserved;
+        reservedLock.readLock().lock();
+        try {
+            reserved = reservedTimes;
+        } finally {
+            reservedLock.readLock().unlock();
+        }
+        for (ReservedTime reservedTime : reserved) {
+            intervals.addAll(reservedTime.intervals(maxTime));
+        }
 
-        return intervals;
+        return intervals.toArray(new Interval[0]);
     }
 }
@@ -0,0 +1,51 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+
+/**
+ * A set of tasks to schedule around a set of reserved times, to be solved by a BatchScheduler.
+ *
+ * @author Jude Brauer
+ */
+public class SchedulingProblem {
+    private final int maxTime;
+    private final Task[] tasks;
+    private final ReservedTime[] reservedTimes;
+
+    /**
+     * Create a problem.
+     * @param maxTime max amount of time in which all tasks must be completed.
+     * @param tasks tasks to schedule
+     * @param reservedTimes reserved times
+     */
+    public SchedulingProblem(int maxTime, Task[] tasks, ReservedTime[] reservedTimes) {
+        this.maxTime = maxTime;
+        this.tasks = tasks;
+        this.reservedTimes = reservedTimes;
+    }
+
+    /**
+     * Get the max amount of time in which all tasks must be completed.
+     * @return max time
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Get the tasks to schedule.
+     * @return tasks
+     */
+    public Task[] getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Get the reserved times.
+     * @return reserved times
+     */
+    public ReservedTime[] getReservedTimes() {
+        return reservedTimes;
+    }
+}
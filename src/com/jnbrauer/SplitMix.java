@@ -0,0 +1,86 @@
+package com.jnbrauer;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 random generator whose state can be saved and restored, for checkpoints.
+ *
+ * Produces exactly the same values as java.util.SplittableRandom created with the same seed, including split(), but
+ * exposes the seed and gamma that make up its state.
+ *
+ * @author Jude Brauer
+ */
+final class SplitMix implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma;
+
+    /**
+     * Create a generator, the same as new SplittableRandom(seed).
+     * @param seed initial seed
+     */
+    SplitMix(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Create a generator with a saved state.
+     * @param seed seed
+     * @param gamma gamma, must be odd
+     */
+    SplitMix(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Split off a new generator, the same as SplittableRandom.split().
+     * @return new generator
+     */
+    SplitMix split() {
+        return new SplitMix(nextLong(), mixGamma(nextSeed()));
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    long getGamma() {
+        return gamma;
+    }
+
+    @Override
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        // Avoid gammas with too few bit transitions
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return n < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,29 @@
+package com.jnbrauer;
+
+/**
+ * The reasons a run of the scheduler can stop.
+ *
+ * @author Jude Brauer
+ */
+public enum TerminationReason {
+    /**
+     * The requested number of generations has been run.
+     */
+    GENERATIONS,
+    /**
+     * A schedule at least as fit as the target fitness has been found.
+     */
+    TARGET_FITNESS,
+    /**
+     * The best fitness has not improved for the stagnation limit.
+     */
+    STAGNATION,
+    /**
+     * The time limit has passed.
+     */
+    TIME_LIMIT,
+    /**
+     * The run was cancelled.
+     */
+    CANCELLED
+}
@@ -0,0 +1,209 @@
+package com.jnbrauer.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Index of the start times at which each task fits into a free gap between reserved times.
+ *
+ * The repetitions of the reserved times are merged into sorted, disjoint gaps of free time. For every task duration the
+ * index keeps the ranges of start times that fit the task into a gap and the cumulative number of start times in them,
+ * so a feasible start time can be drawn uniformly, the feasible start time nearest to a given time can be found, or a
+ * start time can be moved by a distance counted in feasible start times, each by binary search in O(log g) time for g
+ * gaps and without retrying. Tasks with the same duration share their ranges.
+ *
+ * The index is immutable and can be shared between threads.
+ *
+ * @author Jude Brauer
+ */
+public class FreeSlotIndex {
+    // Start times of each task, or null if the task does not fit into any gap
+    private final Slots[] slots;
+
+    /**
+     * Initialize an index of the free gaps between the repetitions of a set of reserved times up until maxStart.
+     * @param reservedTimes reserved times
+     * @param maxStart latest start time of a task
+     * @param durations duration of each task
+     */
+    public FreeSlotIndex(ReservedTime[] reservedTimes, int maxStart, int[] durations) {
+        // Collect all repetitions as (start << 32 | end), sorted by start time
+        int nIntervals = 0;
+        for (ReservedTime reserved : reservedTimes) nIntervals += Math.max(0, reserved.nIntervals(maxStart));
+        long[] intervals = new long[nIntervals];
+        int n = 0;
+        for (ReservedTime reserved : reservedTimes) {
+            for (int i = 0; i < reserved.nIntervals(maxStart); i++) {
+                long start = reserved.getStartOffset() + (long) i * reserved.getPeriod();
+                intervals[n++] = start << 32 | (start + reserved.getDuration()) & 0xFFFFFFFFL;
+            }
+        }
+        Arrays.sort(intervals);
+
+        // Merge the repetitions and keep the free time between them, starting at 0. The last gap is unbounded.
+        int[] gapStarts = new int[nIntervals + 1];
+        int[] gapEnds = new int[nIntervals + 1];
+        int nGaps = 0;
+        int free = 0;
+        for (long interval : intervals) {
+            int start = (int) (interval >> 32);
+            int end = (int) interval;
+            if (start > free) {
+                gapStarts[nGaps] = free;
+                gapEnds[nGaps++] = start;
+            }
+            free = Math.max(free, end);
+        }
+        gapStarts[nGaps] = free;
+        gapEnds[nGaps] = Integer.MAX_VALUE;
+        int allGaps = nGaps + 1;
+
+        this.slots = new Slots[durations.length];
+        Map<Integer, Slots> byDuration = new HashMap<>();
+        for (int i = 0; i < durations.length; i++) {
+            slots[i] = byDuration.computeIfAbsent(durations[i],
+                    duration -> Slots.build(gapStarts, gapEnds, allGaps, duration, maxStart));
+        }
+    }
+
+    /**
+     * Check whether a task fits into any free gap.
+     * @param task index of the task
+     * @return true if the task has a feasible start time
+     */
+    public boolean fits(int task) {
+        return slots[task] != null;
+    }
+
+    /**
+     * Get the number of start times at which a task fits into a free gap.
+     * @param task index of the task
+     * @return number of feasible start times
+     */
+    public long count(int task) {
+        return slots[task] == null ? 0 : slots[task].total();
+    }
+
+    /**
+     * Draw a start time at which a task fits into a free gap, with every such start time equally likely.
+     * @param task index of the task
+     * @param random random stream to draw from
+     * @return start time, or -1 if the task does not fit into any gap
+     */
+    public int sample(int task, RandomGenerator random) {
+        Slots s = slots[task];
+        if (s == null) return -1;
+
+        return s.startAt(random.nextLong(s.total()));
+    }
+
+    /**
+     * Find the start time nearest to a given time at which a task fits into a free gap. Ties go to the earlier start
+     * time.
+     * @param task index of the task
+     * @param time time to start the task as close to as possible
+     * @return start time, or -1 if the task does not fit into any gap
+     */
+    public int nearest(int task, int time) {
+        Slots s = slots[task];
+        if (s == null) return -1;
+
+        return s.startAt(s.rankOfNearest(time));
+    }
+
+    /**
+     * Move a task by a distance measured in free time only, skipping over the time it does not fit into. The move
+     * starts from the feasible start time nearest to the given time and stops at the first or last feasible start time.
+     * @param task index of the task
+     * @param time current start time of the task
+     * @param distance number of feasible start times to move by, negative to move earlier
+     * @return new start time, or -1 if the task does not fit into any gap
+     */
+    public int shift(int task, int time, int distance) {
+        Slots s = slots[task];
+        if (s == null) return -1;
+
+        long rank = s.rankOfNearest(time) + distance;
+        return s.startAt(Math.max(0, Math.min(s.total() - 1, rank)));
+    }
+
+    /**
+     * Ranges [firsts[i], lasts[i]] of start times at which a task of some duration fits into a gap.
+     */
+    private static class Slots {
+        private final int[] firsts;
+        private final int[] lasts;
+        // Number of start times in the first i + 1 ranges
+        private final long[] cumulative;
+
+        private Slots(int[] firsts, int[] lasts, long[] cumulative) {
+            this.firsts = firsts;
+            this.lasts = lasts;
+            this.cumulative = cumulative;
+        }
+
+        // Number of feasible start times
+        long total() {
+            return cumulative[cumulative.length - 1];
+        }
+
+        // Get the feasible start time with k feasible start times before it
+        int startAt(long k) {
+            // First range with more than k start times up to and including it
+            int lo = 0;
+            int hi = cumulative.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] > k) hi = mid;
+                else lo = mid + 1;
+            }
+
+            return (int) (firsts[lo] + k - before(lo));
+        }
+
+        // Get the number of feasible start times before the one nearest to time. Ties go to the earlier start time.
+        long rankOfNearest(int time) {
+            // Last range starting at or before time
+            int i = Arrays.binarySearch(firsts, time);
+            if (i < 0) i = -i - 2;
+            if (i < 0) return 0;
+            if (time <= lasts[i]) return before(i) + time - firsts[i];
+            if (i + 1 == firsts.length) return total() - 1;
+
+            return (long) time - lasts[i] <= (long) firsts[i + 1] - time ? cumulative[i] - 1 : cumulative[i];
+        }
+
+        // Number of feasible start times in the ranges before range i
+        private long before(int i) {
+            return i > 0 ? cumulative[i - 1] : 0;
+        }
+
+        // Find the ranges of a duration, or return null if it does not fit into any gap
+        static Slots build(int[] gapStarts, int[] gapEnds, int nGaps, int duration, int maxStart) {
+            // A task without duration never overlaps a reserved time
+            if (duration <= 0) return new Slots(new int[] {0}, new int[] {maxStart}, new long[] {maxStart + 1L});
+
+            int[] firsts = new int[nGaps];
+            int[] lasts = new int[nGaps];
+            long[] cumulative = new long[nGaps];
+            int n = 0;
+            long total = 0;
+
+            for (int g = 0; g < nGaps && gapStarts[g] <= maxStart; g++) {
+                int first = gapStarts[g];
+                int last = (int) Math.min((long) gapEnds[g] - duration, maxStart);
+                if (first > last) continue;
+
+                firsts[n] = first;
+                lasts[n] = last;
+                total += last - first + 1;
+                cumulative[n++] = total;
+            }
+
+            if (n == 0) return null;
+            return new Slots(Arrays.copyOf(firsts, n), Arrays.copyOf(lasts, n), Arrays.copyOf(cumulative, n));
+        }
+    }
+}
@@ -44,7 +44,19 @@ public class Interval implements Comparable<Interval> {
      * @return amount of overlap in minutes
      */
     public int overlap(Interval other) {
-        return Math.max(0, Math.min(this.end, other.end) - Math.max(this.start, other.start));
+        return overlap(this.start, this.end, other.start, other.end);
+    }
+
+    /**
+     * Get the overlap in minutes of two intervals given by their start and end times.
+     * @param start1 start time of the first interval
+     * @param end1 end time of the first interval
+     * @param start2 start time of the second interval
+     * @param end2 end time of the second interval
+     * @return amount of overlap in minutes
+     */
+    public static int overlap(int start1, int end1, int start2, int end2) {
+        return Math.max(0, Math.min(end1, end2) - Math.max(start1, start2));
     }
 
     /**
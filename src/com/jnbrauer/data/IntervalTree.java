@@ -9,7 +9,7 @@ import java.util.List;
  *
  * @author Jude Brauer
  */
-public class IntervalTree {
+public class IntervalTree implements OverlapIndex {
     /**
      * A node in the interval tree.
      *
@@ -51,11 +51,15 @@ public class IntervalTree {
             Interval[] left = new Interval[n];
             Interval[] right = new Interval[n];
 
+            // A range of one minute cannot be split any further, so all intervals left are kept in this node. This
+            // also stops intervals outside of the tree's range from being passed down forever.
+            boolean leaf = max - min <= 1;
+
             int c = 0, l = 0, r = 0;
             // Loop until either the end of the list is reached or a null is found
             for (int i = 0; i < n && intervals[i] != null; i++) {
                 Interval interval = intervals[i];
-                if (this.center >= interval.getStart() && this.center <= interval.getEnd()) {
+                if (leaf || (this.center >= interval.getStart() && this.center <= interval.getEnd())) {
                     // Add interval to centered list if it overlaps this node's center point
                     centered[c++] = interval;
                 } else if (interval.getEnd() < this.center) {
@@ -122,38 +126,53 @@ public class IntervalTree {
      * @return total overlap with this tree
      */
     public int getOverlap(Interval interval) {
-        return getOverlap(root, interval, 0);
+        return getOverlap(interval.getStart(), interval.getEnd());
+    }
+
+    /**
+     * Get the total overlap of the interval [start, end] with the intervals in this tree.
+     * @param start start time of the interval
+     * @param end end time of the interval
+     * @return total overlap with this tree
+     */
+    @Override
+    public int getOverlap(int start, int end) {
+        return getOverlap(root, start, end, 0);
     }
 
-    private int getOverlap(Node node, Interval interval, int n) {
+    private int getOverlap(Node node, int start, int end, int n) {
         if (node == null) return n;
-        else if (interval.getEnd() < node.center) {
+        else if (end < node.center) {
             // If this interval ends left of center, check overlap with node's intervals sorted by start
-            for (int i = 0; i < node.intervalsStart.length && interval.getEnd() > node.intervalsStart[i].getStart(); i++) {
-                n += interval.overlap(node.intervalsStart[i]);
+            for (int i = 0; i < node.intervalsStart.length && end > node.intervalsStart[i].getStart(); i++) {
+                n += overlap(start, end, node.intervalsStart[i]);
             }
 
             // Check overlap with left node
-            return getOverlap(node.left, interval, n);
-        } else if (interval.getStart() > node.center) {
+            return getOverlap(node.left, start, end, n);
+        } else if (start > node.center) {
             // If this interval starts right of center, check overlap with node's intervals sorted by end
-            for (int i = 0; i < node.intervalsEnd.length && interval.getStart() < node.intervalsEnd[i].getEnd(); i++) {
-                n += interval.overlap(node.intervalsEnd[i]);
+            for (int i = 0; i < node.intervalsEnd.length && start < node.intervalsEnd[i].getEnd(); i++) {
+                n += overlap(start, end, node.intervalsEnd[i]);
             }
 
             // Check overlap with right node
-            return getOverlap(node.right, interval, n);
+            return getOverlap(node.right, start, end, n);
         } else {
             // Interval overlaps center, check with all intervals
             for (int i = 0; i < node.intervalsStart.length; i++) {
-                n += interval.overlap(node.intervalsStart[i]);
+                n += overlap(start, end, node.intervalsStart[i]);
             }
 
-            // Check overlap with both right and left
-            return getOverlap(node.left, interval, n) + getOverlap(node.right, interval, n);
+            // Check overlap with both right and left, only carrying the overlap found so far into one side
+            return getOverlap(node.left, start, end, n) + getOverlap(node.right, start, end, 0);
         }
     }
 
+    private static int overlap(int start, int end, Interval interval) {
+        return Interval.overlap(start, end, interval.getStart(), interval.getEnd());
+    }
+
     /**
      * Get all the intervals contained in this tree in order by start time.
      * @return array of intervals in this tree
@@ -0,0 +1,295 @@
+package com.jnbrauer.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Interval tree that intervals can be added to and removed from.
+ *
+ * The tree is an AVL tree ordered by start time and then end time where each node also stores the latest end time in
+ * its subtree. Adding and removing intervals takes O(log n) time. Queries take O(log n + k) time where k is the number
+ * of intervals found, since subtrees that end before the queried interval starts are skipped.
+ *
+ * Intervals are treated as [start, end): an interval contains a time t if start <= t < end, and two intervals overlap
+ * if the overlap between them is greater than 0.
+ *
+ * This class is not thread safe.
+ *
+ * @author Jude Brauer
+ */
+public class MutableIntervalTree implements OverlapIndex {
+    /**
+     * A node in the interval tree holding a single interval.
+     */
+    private static class Node {
+        final Interval interval;
+
+        Node left;
+        Node right;
+
+        // Height of the subtree rooted at this node
+        int height;
+        // Latest end time in the subtree rooted at this node
+        int maxEnd;
+        // Number of intervals in the subtree rooted at this node
+        int size;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.height = 1;
+            this.maxEnd = interval.getEnd();
+            this.size = 1;
+        }
+    }
+
+    // Root node of tree
+    private Node root;
+
+    /**
+     * Initialize an empty tree.
+     */
+    public MutableIntervalTree() {
+        this.root = null;
+    }
+
+    /**
+     * Initialize a tree from a set of reserved times. Contains the repetitions of each reserved time up until endTime.
+     * @param reservedTimes reserved times
+     * @param endTime maximum time value
+     */
+    public MutableIntervalTree(ReservedTime[] reservedTimes, int endTime) {
+        this();
+        for (ReservedTime reserved : reservedTimes) {
+            for (Interval interval : reserved.intervals(endTime)) add(interval);
+        }
+    }
+
+    /**
+     * Add an interval to the tree.
+     * @param interval interval to add
+     */
+    public void add(Interval interval) {
+        root = add(root, interval);
+    }
+
+    private Node add(Node node, Interval interval) {
+        if (node == null) return new Node(interval);
+
+        if (compare(interval, node.interval) < 0) node.left = add(node.left, interval);
+        else node.right = add(node.right, interval);
+
+        return balance(node);
+    }
+
+    /**
+     * Remove an interval from the tree. Removes one interval with the same start time, end time and description as the
+     * given interval.
+     * @param interval interval to remove
+     * @return true if an interval was removed, false if there was no matching interval
+     */
+    public boolean remove(Interval interval) {
+        int size = getSize();
+        root = remove(root, interval);
+        return getSize() < size;
+    }
+
+    private Node remove(Node node, Interval interval) {
+        if (node == null) return null;
+
+        int c = compare(interval, node.interval);
+        if (c == 0 && Objects.equals(interval.getDescription(), node.interval.getDescription())) {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+
+            // Replace this node with the first node of the right subtree
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = removeFirst(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        } else if (c < 0) {
+            node.left = remove(node.left, interval);
+        } else if (c > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            // Equal times but a different description, the matching interval can be on either side
+            int size = size(node.left);
+            node.left = remove(node.left, interval);
+            if (size(node.left) == size) node.right = remove(node.right, interval);
+        }
+
+        return balance(node);
+    }
+
+    // Remove the first node of a subtree
+    private Node removeFirst(Node node) {
+        if (node.left == null) return node.right;
+        node.left = removeFirst(node.left);
+        return balance(node);
+    }
+
+    @Override
+    public int getOverlap(int start, int end) {
+        return getOverlap(root, start, end);
+    }
+
+    private int getOverlap(Node node, int start, int end) {
+        // Nothing in this subtree ends after the interval starts
+        if (node == null || node.maxEnd <= start) return 0;
+
+        int n = getOverlap(node.left, start, end);
+        n += Interval.overlap(start, end, node.interval.getStart(), node.interval.getEnd());
+
+        // Everything in the right subtree starts at or after this node's interval
+        if (node.interval.getStart() < end) n += getOverlap(node.right, start, end);
+
+        return n;
+    }
+
+    /**
+     * Get all intervals in this tree that contain a point in time.
+     * @param time time
+     * @return intervals containing the time, in order by start time
+     */
+    public List<Interval> stab(int time) {
+        return query(time, time + 1);
+    }
+
+    /**
+     * Get all intervals in this tree that overlap the interval [start, end).
+     * @param start start time of the interval
+     * @param end end time of the interval
+     * @return overlapping intervals, in order by start time
+     */
+    public List<Interval> query(int start, int end) {
+        List<Interval> intervals = new ArrayList<>();
+        query(root, start, end, intervals);
+        return intervals;
+    }
+
+    private void query(Node node, int start, int end, List<Interval> intervals) {
+        if (node == null || node.maxEnd <= start) return;
+
+        query(node.left, start, end, intervals);
+        if (Interval.overlap(start, end, node.interval.getStart(), node.interval.getEnd()) > 0) {
+            intervals.add(node.interval);
+        }
+        if (node.interval.getStart() < end) query(node.right, start, end, intervals);
+    }
+
+    /**
+     * Get all the intervals contained in this tree in order by start time.
+     * @return array of intervals in this tree
+     */
+    public Interval[] getIntervals() {
+        List<Interval> intervals = new ArrayList<>(getSize());
+        getIntervals(root, intervals);
+        return intervals.toArray(new Interval[0]);
+    }
+
+    // Perform in-order traversal of tree
+    private void getIntervals(Node node, List<Interval> intervals) {
+        if (node == null) return;
+        getIntervals(node.left, intervals);
+        intervals.add(node.interval);
+        getIntervals(node.right, intervals);
+    }
+
+    /**
+     * Get the number of intervals in this tree.
+     * @return total number of intervals
+     */
+    public int getSize() {
+        return size(root);
+    }
+
+    /**
+     * Check that every node is ordered, AVL balanced and has the right height, size and latest end time.
+     * @throws IllegalStateException if the tree is broken
+     */
+    void checkInvariants() {
+        checkInvariants(root);
+    }
+
+    private static void checkInvariants(Node node) {
+        if (node == null) return;
+        checkInvariants(node.left);
+        checkInvariants(node.right);
+
+        if (node.left != null && compare(node.left.interval, node.interval) > 0) {
+            throw new IllegalStateException("Left child after " + node.interval);
+        }
+        if (node.right != null && compare(node.right.interval, node.interval) < 0) {
+            throw new IllegalStateException("Right child before " + node.interval);
+        }
+        if (Math.abs(height(node.left) - height(node.right)) > 1) {
+            throw new IllegalStateException("Unbalanced at " + node.interval);
+        }
+
+        int maxEnd = node.interval.getEnd();
+        if (node.left != null) maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        if (node.right != null) maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        if (node.maxEnd != maxEnd || node.height != Math.max(height(node.left), height(node.right)) + 1
+                || node.size != size(node.left) + size(node.right) + 1) {
+            throw new IllegalStateException("Stale height, size or latest end time at " + node.interval);
+        }
+    }
+
+    // Order intervals by start time and then by end time
+    private static int compare(Interval a, Interval b) {
+        int c = Integer.compare(a.getStart(), b.getStart());
+        return c != 0 ? c : Integer.compare(a.getEnd(), b.getEnd());
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Recalculate the height, latest end time and size of a node from its children
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+        node.maxEnd = node.interval.getEnd();
+        if (node.left != null) node.maxEnd = Math.max(node.maxEnd, node.left.maxEnd);
+        if (node.right != null) node.maxEnd = Math.max(node.maxEnd, node.right.maxEnd);
+    }
+
+    // Restore the AVL balance of a node whose subtrees differ in height by at most 2
+    private static Node balance(Node node) {
+        update(node);
+
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        } else if (difference < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+}
@@ -0,0 +1,73 @@
+package com.jnbrauer.data;
+
+/**
+ * Overlap index that stores how much reserved time there is before every minute of the time range.
+ *
+ * The index is a cumulative sum over the number of reserved times active in each minute, so the overlap of [start, end]
+ * with all reserved times is the difference of two array values. Reserved times that overlap each other are counted
+ * once each, the same as in an IntervalTree. Queries take O(1) time; memory grows with the length of the time range
+ * covered by the reserved times.
+ *
+ * @author Jude Brauer
+ */
+public class OccupancyIndex implements OverlapIndex {
+    // Time range covered by the index. Nothing is reserved outside of it.
+    private final int min;
+    private final int max;
+
+    // covered[t - min] is the total reserved time in [min, t). Values may overflow, but the difference of any two of
+    // them is still exact as long as the overlap it represents fits in an int.
+    private final int[] covered;
+
+    /**
+     * Initialize an index of the repetitions of a set of reserved times up until endTime.
+     * @param reservedTimes reserved times
+     * @param endTime maximum time value
+     */
+    public OccupancyIndex(ReservedTime[] reservedTimes, int endTime) {
+        // Find the range covered by all repetitions
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (ReservedTime reserved : reservedTimes) {
+            int n = reserved.nIntervals(endTime);
+            if (n <= 0) continue;
+            min = Math.min(min, reserved.getStartOffset());
+            max = Math.max(max, reserved.getStartOffset() + (n - 1) * reserved.getPeriod() + reserved.getDuration());
+        }
+        if (min > max) min = max = 0;
+
+        this.min = min;
+        this.max = max;
+        this.covered = new int[max - min + 1];
+
+        // Count the reserved times starting and ending at each minute
+        for (ReservedTime reserved : reservedTimes) {
+            int n = reserved.nIntervals(endTime);
+            for (int i = 0; i < n; i++) {
+                int start = reserved.getStartOffset() + i * reserved.getPeriod();
+                covered[start - min]++;
+                covered[start + reserved.getDuration() - min]--;
+            }
+        }
+
+        // Turn the counts into the number of active reserved times in each minute, and then into the cumulative sum
+        int active = 0;
+        int sum = 0;
+        for (int t = 0; t < covered.length; t++) {
+            int change = covered[t];
+            covered[t] = sum;
+            active += change;
+            sum += active;
+        }
+    }
+
+    @Override
+    public int getOverlap(int start, int end) {
+        if (end <= start) return 0;
+
+        int s = Math.min(Math.max(start, min), max);
+        int e = Math.min(Math.max(end, min), max);
+
+        return covered[e - min] - covered[s - min];
+    }
+}
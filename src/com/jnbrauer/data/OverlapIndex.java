@@ -0,0 +1,16 @@
+package com.jnbrauer.data;
+
+/**
+ * An index of reserved time intervals that can find the total overlap of an interval with all of them.
+ *
+ * @author Jude Brauer
+ */
+public interface OverlapIndex {
+    /**
+     * Get the total overlap of the interval [start, end] with the intervals in this index.
+     * @param start start time of the interval
+     * @param end end time of the interval
+     * @return total overlap in minutes
+     */
+    int getOverlap(int start, int end);
+}
@@ -0,0 +1,149 @@
+package com.jnbrauer.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of overlap indexes shared between schedulers, so that problems with the same reserved times do not each build
+ * their own index.
+ *
+ * Indexes are looked up by kind, end time and the start offset, duration and period of every reserved time, in any
+ * order. Titles do not affect overlaps and are ignored. When the cache is full the least recently used index is
+ * evicted. MUTABLE_INTERVAL_TREE indexes are changed in place by their owner, so they are never shared and a new one is
+ * built every time.
+ *
+ * This class is thread safe. The cached indexes are only read, so one index can be used by several schedulers at once.
+ *
+ * @author Jude Brauer
+ */
+public class OverlapIndexCache {
+    /**
+     * Identifies the index built from a set of reserved times.
+     */
+    private static class Key {
+        final OverlapIndexType type;
+        final int endTime;
+        // Start offset, duration and period of each reserved time, sorted
+        final long[] reservedTimes;
+        final int hash;
+
+        Key(OverlapIndexType type, ReservedTime[] reservedTimes, int endTime) {
+            this.type = type;
+            this.endTime = endTime;
+            this.reservedTimes = new long[reservedTimes.length * 2];
+            for (int i = 0; i < reservedTimes.length; i++) {
+                ReservedTime reserved = reservedTimes[i];
+                this.reservedTimes[2 * i] = (long) reserved.getStartOffset() << 32
+                        | (reserved.getDuration() & 0xFFFFFFFFL);
+                this.reservedTimes[2 * i + 1] = reserved.getPeriod();
+            }
+            sortPairs(this.reservedTimes);
+            this.hash = 31 * (31 * type.hashCode() + endTime) + Arrays.hashCode(this.reservedTimes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return type == other.type && endTime == other.endTime && Arrays.equals(reservedTimes, other.reservedTimes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        // Sort the pairs of values by their first and then their second value
+        private static void sortPairs(long[] values) {
+            for (int i = 2; i < values.length; i += 2) {
+                long first = values[i];
+                long second = values[i + 1];
+                int j = i - 2;
+                while (j >= 0 && (values[j] > first || values[j] == first && values[j + 1] > second)) {
+                    values[j + 2] = values[j];
+                    values[j + 3] = values[j + 1];
+                    j -= 2;
+                }
+                values[j + 2] = first;
+                values[j + 3] = second;
+            }
+        }
+    }
+
+    private final Map<Key, OverlapIndex> indexes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create an empty cache.
+     * @param capacity maximum number of indexes kept
+     */
+    public OverlapIndexCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, OverlapIndex> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the index of a set of reserved times, building it if it is not cached.
+     * @param type kind of index
+     * @param reservedTimes reserved times
+     * @param endTime maximum time value
+     * @return index of the reserved times
+     */
+    public OverlapIndex get(OverlapIndexType type, ReservedTime[] reservedTimes, int endTime) {
+        if (type == OverlapIndexType.MUTABLE_INTERVAL_TREE) return type.build(reservedTimes, endTime);
+
+        Key key = new Key(type, reservedTimes, endTime);
+        synchronized (indexes) {
+            OverlapIndex index = indexes.get(key);
+            if (index != null) {
+                hits.incrementAndGet();
+                return index;
+            }
+        }
+
+        // Build outside the lock so that other lookups do not wait. If another thread builds the same index at the
+        // same time, the first one stored is kept.
+        misses.incrementAndGet();
+        OverlapIndex index = type.build(reservedTimes, endTime);
+        synchronized (indexes) {
+            OverlapIndex existing = indexes.putIfAbsent(key, index);
+            return existing != null ? existing : index;
+        }
+    }
+
+    /**
+     * Get the number of lookups that found a cached index.
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that had to build an index.
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of cached indexes.
+     * @return number of indexes
+     */
+    public int getSize() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jnbrauer.data;
+
+/**
+ * The kinds of overlap index that can be built from a set of reserved times. All kinds give the same overlaps.
+ *
+ * @author Jude Brauer
+ */
+public enum OverlapIndexType {
+    /**
+     * Interval tree holding every repetition of every reserved time. Size grows with the length of the time range.
+     */
+    INTERVAL_TREE,
+    /**
+     * Balanced interval tree holding every repetition of every reserved time that reserved times can be added to and
+     * removed from without rebuilding it.
+     */
+    MUTABLE_INTERVAL_TREE,
+    /**
+     * Calculates the overlap with each reserved time arithmetically from its period. Size and query time only depend
+     * on the number of reserved times.
+     */
+    PERIODIC,
+    /**
+     * Cumulative sum of the reserved time in every minute. Queries take constant time, size grows with the length of
+     * the time range.
+     */
+    OCCUPANCY;
+
+    /**
+     * Build an index of this kind.
+     * @param reservedTimes reserved times
+     * @param endTime maximum time value
+     * @return index of the reserved times
+     */
+    public OverlapIndex build(ReservedTime[] reservedTimes, int endTime) {
+        switch (this) {
+            case INTERVAL_TREE:
+                return new IntervalTree(reservedTimes, endTime);
+            case MUTABLE_INTERVAL_TREE:
+                return new MutableIntervalTree(reservedTimes, endTime);
+            case PERIODIC:
+                return new PeriodicOverlapIndex(reservedTimes, endTime);
+            case OCCUPANCY:
+                return new OccupancyIndex(reservedTimes, endTime);
+            default:
+                throw new IllegalStateException("Unknown index type " + this);
+        }
+    }
+}
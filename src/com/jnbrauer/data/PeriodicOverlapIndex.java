@@ -0,0 +1,87 @@
+package com.jnbrauer.data;
+
+/**
+ * Overlap index that calculates the overlap of an interval with recurring reserved times without storing their
+ * repetitions.
+ *
+ * The repetitions of a reserved time covering the times before some time x add up to a closed-form sum, so the overlap
+ * of [start, end] with all repetitions is the difference of that sum at end and at start. Queries take O(1) time per
+ * reserved time regardless of how many times it repeats. Overlapping repetitions are counted once each, the same as in
+ * an IntervalTree of all repetitions.
+ *
+ * @author Jude Brauer
+ */
+public class PeriodicOverlapIndex implements OverlapIndex {
+    private final int nReserved;
+    private final int[] startOffsets;
+    private final int[] durations;
+    private final int[] periods;
+    // Number of repetitions of each reserved time
+    private final int[] repetitions;
+
+    /**
+     * Initialize an index of the repetitions of a set of reserved times up until endTime.
+     * @param reservedTimes reserved times
+     * @param endTime maximum time value
+     */
+    public PeriodicOverlapIndex(ReservedTime[] reservedTimes, int endTime) {
+        this.nReserved = reservedTimes.length;
+        this.startOffsets = new int[nReserved];
+        this.durations = new int[nReserved];
+        this.periods = new int[nReserved];
+        this.repetitions = new int[nReserved];
+
+        for (int i = 0; i < nReserved; i++) {
+            startOffsets[i] = reservedTimes[i].getStartOffset();
+            durations[i] = reservedTimes[i].getDuration();
+            periods[i] = reservedTimes[i].getPeriod();
+            repetitions[i] = Math.max(0, reservedTimes[i].nIntervals(endTime));
+        }
+    }
+
+    @Override
+    public int getOverlap(int start, int end) {
+        if (end <= start) return 0;
+
+        long overlap = 0;
+        for (int i = 0; i < nReserved; i++) {
+            overlap += coveredBefore(i, end) - coveredBefore(i, start);
+        }
+
+        return (int) overlap;
+    }
+
+    /**
+     * Get the total time covered by the repetitions of a reserved time before time x.
+     *
+     * Repetition k covers min(max(x - start_k, 0), duration) minutes before x where start_k = startOffset + k * period.
+     * Repetitions that started at least duration minutes before x are covered completely, the ones that started less
+     * than duration minutes before x are covered partially and the rest are not covered.
+     *
+     * @param i index of the reserved time
+     * @param x time
+     * @return minutes covered before x
+     */
+    private long coveredBefore(int i, int x) {
+        long t = (long) x - startOffsets[i];
+        if (t <= 0 || repetitions[i] == 0) return 0;
+
+        long period = periods[i];
+        long duration = durations[i];
+        long n = repetitions[i];
+
+        // Repetitions [0, full) are covered completely
+        long full = t >= duration ? Math.min(n, (t - duration) / period + 1) : 0;
+        // Repetitions [full, started) are covered partially
+        long started = Math.min(n, (t - 1) / period + 1);
+
+        long covered = full * duration;
+        if (started > full) {
+            long count = started - full;
+            // Sum of t - k * period for k in [full, started)
+            covered += count * t - period * (full + started - 1) * count / 2;
+        }
+
+        return covered;
+    }
+}
@@ -0,0 +1,127 @@
+package com.jnbrauer.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A list of reserved times stored as primitive columns instead of one ReservedTime object per reserved time.
+ *
+ * Start offsets, durations and periods are kept in int arrays and each title is stored once in a table of distinct
+ * titles, the same way as TaskColumns. Reserved times are appended with add() while an input is being read.
+ *
+ * @author Jude Brauer
+ */
+public class ReservedTimeColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size = 0;
+    private int[] startOffsets = new int[INITIAL_CAPACITY];
+    private int[] durations = new int[INITIAL_CAPACITY];
+    private int[] periods = new int[INITIAL_CAPACITY];
+    private int[] titleIds = new int[INITIAL_CAPACITY];
+
+    // Distinct titles and the index of each in titles
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int nTitles = 0;
+    private final Map<String, Integer> titleIndex = new HashMap<>();
+
+    /**
+     * Append a reserved time.
+     * @param title title of the reserved time
+     * @param startOffset the time at which the reserved time first occurs
+     * @param duration the duration of the reserved time
+     * @param period the amount of time between the start time of repetitions of the reserved time
+     */
+    public void add(String title, int startOffset, int duration, int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be at least 1");
+
+        if (size == durations.length) {
+            int capacity = 2 * size;
+            startOffsets = Arrays.copyOf(startOffsets, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            periods = Arrays.copyOf(periods, capacity);
+            titleIds = Arrays.copyOf(titleIds, capacity);
+        }
+
+        startOffsets[size] = startOffset;
+        durations[size] = duration;
+        periods[size] = period;
+        titleIds[size] = intern(title);
+        size++;
+    }
+
+    /**
+     * Get the number of reserved times.
+     * @return number of reserved times
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the title of a reserved time.
+     * @param reserved index of the reserved time
+     * @return title
+     */
+    public String getTitle(int reserved) {
+        return titles[titleIds[checkIndex(reserved)]];
+    }
+
+    /**
+     * Get the start time of the first repetition of a reserved time.
+     * @param reserved index of the reserved time
+     * @return start time
+     */
+    public int getStartOffset(int reserved) {
+        return startOffsets[checkIndex(reserved)];
+    }
+
+    /**
+     * Get the duration of a reserved time.
+     * @param reserved index of the reserved time
+     * @return duration
+     */
+    public int getDuration(int reserved) {
+        return durations[checkIndex(reserved)];
+    }
+
+    /**
+     * Get the period of a reserved time.
+     * @param reserved index of the reserved time
+     * @return period
+     */
+    public int getPeriod(int reserved) {
+        return periods[checkIndex(reserved)];
+    }
+
+    /**
+     * Create a ReservedTime object for every reserved time.
+     * @return reserved times
+     */
+    public ReservedTime[] toReservedTimes() {
+        ReservedTime[] reservedTimes = new ReservedTime[size];
+        for (int i = 0; i < size; i++) {
+            reservedTimes[i] = new ReservedTime(titles[titleIds[i]], startOffsets[i], durations[i], periods[i]);
+        }
+        return reservedTimes;
+    }
+
+    // Get the index of a title in the title table, adding it if it is new
+    private int intern(String title) {
+        Integer id = titleIndex.get(title);
+        if (id != null) return id;
+
+        if (nTitles == titles.length) titles = Arrays.copyOf(titles, 2 * nTitles);
+        titles[nTitles] = title;
+        titleIndex.put(title, nTitles);
+        return nTitles++;
+    }
+
+    private int checkIndex(int reserved) {
+        if (reserved < 0 || reserved >= size) {
+            throw new IndexOutOfBoundsException("Reserved time " + reserved + " out of range [0, " + size + ")");
+        }
+        return reserved;
+    }
+}
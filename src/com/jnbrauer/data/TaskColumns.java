@@ -0,0 +1,159 @@
+package com.jnbrauer.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A list of tasks stored as primitive columns instead of one Task object per task.
+ *
+ * Durations and priorities are kept in int arrays and each title is stored once in a table of distinct titles, with
+ * each task holding the index of its title. Memory use grows linearly with the number of tasks at 12 bytes per task
+ * plus the distinct titles, which makes it suitable for inputs with many tasks. Tasks are appended with add() while
+ * an input is being read; the columns grow as needed.
+ *
+ * @author Jude Brauer
+ */
+public class TaskColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size = 0;
+    private int[] durations = new int[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] titleIds = new int[INITIAL_CAPACITY];
+
+    // Distinct titles and the index of each in titles
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int nTitles = 0;
+    private final Map<String, Integer> titleIndex = new HashMap<>();
+
+    /**
+     * Create the columns of an array of tasks.
+     * @param tasks tasks
+     * @return columns holding the tasks in the same order
+     */
+    public static TaskColumns of(Task[] tasks) {
+        TaskColumns columns = new TaskColumns();
+        for (Task task : tasks) columns.add(task.getTitle(), task.getPriority(), task.getDuration());
+        return columns;
+    }
+
+    /**
+     * Append a task.
+     * @param title title of the task
+     * @param priority priority of the task
+     * @param duration duration of the task
+     */
+    public void add(String title, int priority, int duration) {
+        if (duration < 0) throw new IllegalArgumentException("duration must not be negative");
+
+        if (size == durations.length) {
+            int capacity = 2 * size;
+            durations = Arrays.copyOf(durations, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            titleIds = Arrays.copyOf(titleIds, capacity);
+        }
+
+        durations[size] = duration;
+        priorities[size] = priority;
+        titleIds[size] = intern(title);
+        size++;
+    }
+
+    /**
+     * Get the number of tasks.
+     * @return number of tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the title of a task.
+     * @param task index of the task
+     * @return title
+     */
+    public String getTitle(int task) {
+        return titles[titleIds[checkIndex(task)]];
+    }
+
+    /**
+     * Get the priority of a task.
+     * @param task index of the task
+     * @return priority
+     */
+    public int getPriority(int task) {
+        return priorities[checkIndex(task)];
+    }
+
+    /**
+     * Get the duration of a task.
+     * @param task index of the task
+     * @return duration
+     */
+    public int getDuration(int task) {
+        return durations[checkIndex(task)];
+    }
+
+    /**
+     * Get the number of distinct titles.
+     * @return number of distinct titles
+     */
+    public int getDistinctTitles() {
+        return nTitles;
+    }
+
+    /**
+     * Copy the duration column.
+     * @return duration of each task
+     */
+    public int[] copyDurations() {
+        return Arrays.copyOf(durations, size);
+    }
+
+    /**
+     * Copy the priority column.
+     * @return priority of each task
+     */
+    public int[] copyPriorities() {
+        return Arrays.copyOf(priorities, size);
+    }
+
+    /**
+     * Get the title of each task. Tasks with the same title share the same String.
+     * @return title of each task
+     */
+    public String[] copyTitles() {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) result[i] = titles[titleIds[i]];
+        return result;
+    }
+
+    /**
+     * Create a Task object for every task.
+     * @return tasks
+     */
+    public Task[] toTasks() {
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) tasks[i] = new Task(titles[titleIds[i]], priorities[i], durations[i]);
+        return tasks;
+    }
+
+    // Get the index of a title in the title table, adding it if it is new
+    private int intern(String title) {
+        Integer id = titleIndex.get(title);
+        if (id != null) return id;
+
+        if (nTitles == titles.length) titles = Arrays.copyOf(titles, 2 * nTitles);
+        titles[nTitles] = title;
+        titleIndex.put(title, nTitles);
+        return nTitles++;
+    }
+
+    private int checkIndex(int task) {
+        if (task < 0 || task >= size) {
+            throw new IndexOutOfBoundsException("Task " + task + " out of range [0, " + size + ")");
+        }
+        return task;
+    }
+}
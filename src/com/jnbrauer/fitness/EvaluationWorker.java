@@ -0,0 +1,263 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.utils.IntArrays;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+
+/**
+ * Evaluates schedules sent by a RemoteEvaluator, usually in another process or on another machine.
+ *
+ * Every connection gets its own thread and its own problem, so a master can use several cores of a worker by
+ * connecting to it several times. Run it on its own with
+ * <pre>
+ * java -cp scheduler.jar com.jnbrauer.fitness.EvaluationWorker 5000
+ * java -cp scheduler.jar com.jnbrauer.fitness.EvaluationWorker 0.0.0.0 5000
+ * java -cp scheduler.jar com.jnbrauer.fitness.EvaluationWorker /tmp/scheduler.sock
+ * </pre>
+ * to listen on a TCP port of the loopback interface, a TCP port of the given host or a Unix-domain socket. Workers do
+ * not authenticate masters, so only listen on other interfaces in a trusted network.
+ *
+ * Messages whose sizes or values are out of range close the connection before anything is allocated for them.
+ *
+ * @author Jude Brauer
+ */
+public class EvaluationWorker implements AutoCloseable {
+    // Largest message, answer or overlap index accepted from a master, in ints
+    private static final int MAX_INTS = 1 << 26;
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+
+    /**
+     * Start listening for masters.
+     * @param address TCP address (port 0 picks a free port) or path of a Unix-domain socket to listen on
+     * @throws IOException if the address could not be bound
+     */
+    public EvaluationWorker(SocketAddress address) throws IOException {
+        this.server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        server.bind(address);
+        this.address = server.getLocalAddress();
+    }
+
+    /**
+     * Get the address the worker listens on, with the port that was picked if it was bound to port 0.
+     * @return listening address
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Accept masters on a background thread until the worker is closed.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::serve, "evaluation-worker-" + address);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accept masters on the calling thread until the worker is closed.
+     */
+    public void serve() {
+        try {
+            while (true) {
+                SocketChannel channel = server.accept();
+                SocketAddress master = channel.getRemoteAddress();
+                Thread handler = new Thread(() -> handle(channel, master), "evaluation-" + master);
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (ClosedChannelException e) {
+            // Closed by close()
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stop accepting masters. Connections that are already open stay open until their master closes them.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            if (address instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Answer the messages of one master until it disconnects
+    private void handle(SocketChannel channel, SocketAddress master) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        FitnessEvaluator evaluator = null;
+        int nTasks = 0;
+        int[] genes = new int[0];
+        FitnessBreakdown breakdown = new FitnessBreakdown(0);
+
+        try (channel) {
+            while (true) {
+                buffer = read(channel, buffer, 1);
+                int type = buffer.getInt();
+
+                if (type == RemoteEvaluator.PROBLEM) {
+                    buffer = read(channel, buffer, 2);
+                    int maxTime = buffer.getInt();
+                    nTasks = buffer.getInt();
+                    if (maxTime < 0) throw new IOException("Invalid max time " + maxTime);
+                    checkSize("task count", nTasks, 2L * nTasks + 1);
+
+                    int[] durations = new int[nTasks];
+                    int[] priorities = new int[nTasks];
+                    buffer = read(channel, buffer, 2 * nTasks + 1);
+                    IntArrays.getInts(buffer, durations, 0, nTasks);
+                    IntArrays.getInts(buffer, priorities, 0, nTasks);
+
+                    int nReserved = buffer.getInt();
+                    checkSize("reserved time count", nReserved, 3L * nReserved + 2);
+                    ReservedTime[] reservedTimes = new ReservedTime[nReserved];
+                    buffer = read(channel, buffer, 3 * nReserved + 2);
+                    for (int i = 0; i < nReserved; i++) {
+                        reservedTimes[i] = new ReservedTime("", buffer.getInt(), buffer.getInt(), buffer.getInt());
+                        if (reservedTimes[i].getPeriod() < 1 || reservedTimes[i].getDuration() < 0) {
+                            throw new IOException("Invalid reserved time " + i);
+                        }
+                    }
+                    OverlapMethod overlapMethod = valueOf(OverlapMethod.values(), buffer.getInt());
+                    OverlapIndexType indexType = valueOf(OverlapIndexType.values(), buffer.getInt());
+                    checkIndexSize(indexType, reservedTimes, maxTime);
+
+                    evaluator = new FitnessEvaluator(durations, priorities, indexType.build(reservedTimes, maxTime),
+                            overlapMethod, FitnessKernel.vector());
+                    breakdown = new FitnessBreakdown(nTasks);
+                } else if (type == RemoteEvaluator.BATCH && evaluator != null) {
+                    buffer = read(channel, buffer, 2);
+                    int batch = buffer.getInt();
+                    int count = buffer.getInt();
+                    // The answer is the largest message of a batch
+                    checkSize("batch size", count, 2 + count * (3L + nTasks));
+
+                    if (genes.length < count * nTasks) genes = new int[count * nTasks];
+                    buffer = read(channel, buffer, count * nTasks);
+                    IntArrays.getInts(buffer, genes, 0, count * nTasks);
+
+                    buffer = reserve(buffer, 2 + count * (3 + nTasks));
+                    buffer.putInt(batch);
+                    buffer.putInt(count);
+                    for (int i = 0; i < count; i++) {
+                        evaluator.evaluate(genes, i * nTasks, breakdown);
+                        buffer.putInt(breakdown.taskOverlap);
+                        buffer.putInt(breakdown.priorityInversions);
+                        buffer.putInt(breakdown.reservedOverlap);
+                        IntArrays.putInts(buffer, breakdown.taskReservedOverlaps, 0, nTasks);
+                    }
+                    buffer.flip();
+                    RemoteEvaluator.writeFully(channel, buffer);
+                } else {
+                    throw new IOException("Unexpected message " + type);
+                }
+            }
+        } catch (IOException e) {
+            // The master disconnected, which is how every run ends, or the connection broke
+            System.err.println("Closed connection to master " + master + ": " + e);
+        } catch (RuntimeException e) {
+            // The master sent something invalid, so it gets no more answers
+            System.err.println("Closed connection to master " + master + " after an invalid message");
+            e.printStackTrace();
+        }
+    }
+
+    // Check that a count from a master is not negative and that the message it sizes is not too large
+    private static void checkSize(String name, int count, long nInts) throws IOException {
+        if (count < 0 || nInts > MAX_INTS) throw new IOException("Invalid " + name + " " + count);
+    }
+
+    // Get an enum constant by the ordinal sent by a master
+    private static <E extends Enum<E>> E valueOf(E[] values, int ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) throw new IOException("Invalid ordinal " + ordinal);
+        return values[ordinal];
+    }
+
+    // Check that an index that stores every repetition of the reserved times, or every minute they cover, stays small
+    private static void checkIndexSize(OverlapIndexType indexType, ReservedTime[] reservedTimes, int maxTime)
+            throws IOException {
+        if (indexType == OverlapIndexType.PERIODIC) return;
+
+        long size = 0;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (ReservedTime reserved : reservedTimes) {
+            long n = ((long) maxTime - reserved.getStartOffset()) / reserved.getPeriod() + 1;
+            if (n <= 0) continue;
+            size += n;
+            min = Math.min(min, reserved.getStartOffset());
+            max = Math.max(max, reserved.getStartOffset() + (n - 1) * reserved.getPeriod() + reserved.getDuration());
+        }
+        if (indexType == OverlapIndexType.OCCUPANCY && max >= min) size = max - min + 1;
+
+        if (size > MAX_INTS) throw new IOException("Overlap index too large: " + size);
+    }
+
+    // Read the given number of ints into a buffer, which is grown if needed, and return it ready to be read
+    private static ByteBuffer read(SocketChannel channel, ByteBuffer buffer, int nInts) throws IOException {
+        buffer = reserve(buffer, nInts);
+        buffer.limit(nInts * Integer.BYTES);
+        RemoteEvaluator.readFully(channel, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    // Clear a buffer, replacing it with a larger one if it can not hold the given number of ints
+    private static ByteBuffer reserve(ByteBuffer buffer, int nInts) {
+        if (buffer.capacity() < nInts * Integer.BYTES) {
+            buffer = ByteBuffer.allocateDirect(Math.max(nInts * Integer.BYTES, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Run a worker until the process is killed. A TCP port on its own is bound on the loopback interface.
+     * @param args TCP port, host and TCP port, or path of a Unix-domain socket to listen on
+     * @throws IOException if the address could not be bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: EvaluationWorker [host] <port> | <socket path>");
+            System.exit(1);
+        }
+
+        SocketAddress address;
+        try {
+            int port = Integer.parseInt(args[args.length - 1]);
+            address = args.length == 2 ? new InetSocketAddress(args[0], port)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        } catch (NumberFormatException e) {
+            if (args.length == 2) {
+                System.err.println("Invalid port " + args[1]);
+                System.exit(1);
+            }
+            address = UnixDomainSocketAddress.of(args[0]);
+        }
+
+        try (EvaluationWorker worker = new EvaluationWorker(address)) {
+            System.out.println("Listening on " + worker.getAddress());
+            worker.serve();
+        }
+    }
+}
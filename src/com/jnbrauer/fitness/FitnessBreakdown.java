@@ -0,0 +1,68 @@
+package com.jnbrauer.fitness;
+
+/**
+ * The terms that make up the fitness of a schedule: the total overlap between tasks, the weighted priority inversions
+ * and the overlap of each task with reserved times.
+ *
+ * Breakdowns are mutable so that they can be reused from one generation to the next.
+ *
+ * @author Jude Brauer
+ */
+public class FitnessBreakdown {
+    int taskOverlap;
+    int priorityInversions;
+    int reservedOverlap;
+    final int[] taskReservedOverlaps;
+
+    /**
+     * Create an empty breakdown for a schedule with the given number of tasks.
+     * @param nTasks number of tasks
+     */
+    public FitnessBreakdown(int nTasks) {
+        this.taskReservedOverlaps = new int[nTasks];
+    }
+
+    /**
+     * Get the total overlap in minutes between all pairs of tasks.
+     * @return task overlap
+     */
+    public int getTaskOverlap() {
+        return taskOverlap;
+    }
+
+    /**
+     * Get the sum of the priority differences of all pairs of tasks scheduled out of priority order.
+     * @return weighted priority inversions
+     */
+    public int getPriorityInversions() {
+        return priorityInversions;
+    }
+
+    /**
+     * Get the total overlap in minutes between tasks and reserved times.
+     * @return reserved time overlap
+     */
+    public int getReservedOverlap() {
+        return reservedOverlap;
+    }
+
+    /**
+     * Get the overlap in minutes of a single task with reserved times.
+     * @param task index of the task
+     * @return reserved time overlap of the task
+     */
+    public int getTaskReservedOverlap(int task) {
+        return taskReservedOverlaps[task];
+    }
+
+    /**
+     * Copy the values of another breakdown into this one.
+     * @param other breakdown with the same number of tasks
+     */
+    public void copyFrom(FitnessBreakdown other) {
+        this.taskOverlap = other.taskOverlap;
+        this.priorityInversions = other.priorityInversions;
+        this.reservedOverlap = other.reservedOverlap;
+        System.arraycopy(other.taskReservedOverlaps, 0, this.taskReservedOverlaps, 0, taskReservedOverlaps.length);
+    }
+}
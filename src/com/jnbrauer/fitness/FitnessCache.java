@@ -0,0 +1,293 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.utils.IntArrays;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the fitness breakdowns of recently evaluated schedules, keyed by a 64-bit hash of the start times.
+ *
+ * The cache is split into buckets of WAYS entries. A schedule can only be stored in the bucket its hash maps to, and
+ * when the bucket is full the least recently used entry in it is evicted. Entries store the whole schedule, so two
+ * schedules with the same hash are never confused.
+ *
+ * Buckets are guarded by a fixed number of locks so that several workers can use the cache at once. Only put()
+ * changes which entries are evicted, so as long as schedules are put in the same order the cache always holds the same
+ * schedules, however lookups are spread between threads.
+ *
+ * @author Jude Brauer
+ */
+public class FitnessCache {
+    // Number of entries in each bucket
+    private static final int WAYS = 4;
+    // Number of locks the buckets are divided between
+    private static final int STRIPES = 64;
+
+    private final int nTasks;
+    private final int nBuckets;
+
+    // Entries, bucket b holds entries [b * WAYS, (b + 1) * WAYS)
+    private final boolean[] used;
+    private final long[] hashes;
+    private final int[] genes;
+    private final FitnessBreakdown[] breakdowns;
+    // Time each entry was last used, counted separately for each lock
+    private final long[] lastUsed;
+
+    private final Object[] locks;
+    private final long[] clocks;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create an empty cache.
+     * @param capacity maximum number of schedules, rounded up to a power of two of at least WAYS
+     * @param nTasks number of tasks in each schedule
+     */
+    public FitnessCache(int capacity, int nTasks) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+
+        this.nTasks = nTasks;
+        int buckets = (capacity + WAYS - 1) / WAYS;
+        this.nBuckets = buckets == 1 ? 1 : Integer.highestOneBit(buckets - 1) << 1;
+
+        int size = nBuckets * WAYS;
+        this.used = new boolean[size];
+        this.hashes = new long[size];
+        this.genes = new int[size * nTasks];
+        this.breakdowns = new FitnessBreakdown[size];
+        for (int i = 0; i < size; i++) breakdowns[i] = new FitnessBreakdown(nTasks);
+        this.lastUsed = new long[size];
+
+        this.locks = new Object[Math.min(STRIPES, nBuckets)];
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+        this.clocks = new long[locks.length];
+    }
+
+    /**
+     * Calculate the hash of a schedule.
+     * @param genes array containing the schedule
+     * @param offset offset of the schedule in genes
+     * @param nTasks number of tasks in the schedule
+     * @return 64-bit hash
+     */
+    public static long hash(int[] genes, int offset, int nTasks) {
+        long h = nTasks;
+        for (int i = offset; i < offset + nTasks; i++) h = (h ^ genes[i]) * 0x9E3779B97F4A7C15L;
+
+        // Mix the high bits into the low bits, which select the bucket
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Look up the breakdown of a schedule. Counts a hit or a miss but does not count as a use of the entry for
+     * eviction.
+     * @param hash hash of the schedule
+     * @param schedule array containing the schedule
+     * @param offset offset of the schedule in schedule
+     * @param result breakdown to copy the cached breakdown into if found
+     * @return true if the schedule was found
+     */
+    public boolean get(long hash, int[] schedule, int offset, FitnessBreakdown result) {
+        int bucket = bucket(hash);
+        synchronized (locks[stripe(bucket)]) {
+            int entry = find(bucket, hash, schedule, offset);
+            if (entry < 0) {
+                misses.incrementAndGet();
+                return false;
+            }
+
+            result.copyFrom(breakdowns[entry]);
+            hits.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Check if a schedule is in the cache without counting a hit or a miss.
+     * @param hash hash of the schedule
+     * @param schedule array containing the schedule
+     * @param offset offset of the schedule in schedule
+     * @return true if the schedule was found
+     */
+    public boolean contains(long hash, int[] schedule, int offset) {
+        int bucket = bucket(hash);
+        synchronized (locks[stripe(bucket)]) {
+            return find(bucket, hash, schedule, offset) >= 0;
+        }
+    }
+
+    /**
+     * Store the breakdown of a schedule, or mark it as the most recently used if it is already stored. Evicts the least
+     * recently used schedule in its bucket if the bucket is full.
+     * @param hash hash of the schedule
+     * @param schedule array containing the schedule
+     * @param offset offset of the schedule in schedule
+     * @param breakdown breakdown of the schedule
+     */
+    public void put(long hash, int[] schedule, int offset, FitnessBreakdown breakdown) {
+        int bucket = bucket(hash);
+        int stripe = stripe(bucket);
+        synchronized (locks[stripe]) {
+            int entry = find(bucket, hash, schedule, offset);
+
+            if (entry < 0) {
+                // Use an empty entry if there is one, otherwise the least recently used one
+                for (int e = bucket * WAYS; e < (bucket + 1) * WAYS; e++) {
+                    if (!used[e]) {
+                        entry = e;
+                        break;
+                    }
+                    if (entry < 0 || lastUsed[e] < lastUsed[entry]) entry = e;
+                }
+                if (used[entry]) evictions.incrementAndGet();
+
+                used[entry] = true;
+                hashes[entry] = hash;
+                System.arraycopy(schedule, offset, genes, entry * nTasks, nTasks);
+                breakdowns[entry].copyFrom(breakdown);
+            }
+
+            lastUsed[entry] = ++clocks[stripe];
+        }
+    }
+
+    /**
+     * Remove all schedules, for example because the fitness function has changed. The counters are kept.
+     */
+    public void clear() {
+        for (int s = 0; s < locks.length; s++) {
+            synchronized (locks[s]) {
+                for (int bucket = s; bucket < nBuckets; bucket += locks.length) {
+                    Arrays.fill(used, bucket * WAYS, (bucket + 1) * WAYS, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of bytes save() writes. The cache must not be used at the same time.
+     * @return size of the saved contents in bytes
+     */
+    public long stateSize() {
+        int nUsed = 0;
+        for (boolean u : used) if (u) nUsed++;
+        return 2L * Integer.BYTES + (long) clocks.length * Long.BYTES
+                + (long) nUsed * (Integer.BYTES + 2 * Long.BYTES + (3 + 2L * nTasks) * Integer.BYTES);
+    }
+
+    /**
+     * Save the contents of the cache, including the order in which schedules would be evicted, so that load() can
+     * restore a cache that behaves exactly the same. The cache must not be used while it is being saved.
+     * @param buffer buffer to write to, with at least stateSize() bytes remaining
+     */
+    public void save(ByteBuffer buffer) {
+        int nUsed = 0;
+        for (boolean u : used) if (u) nUsed++;
+
+        buffer.putInt(getCapacity());
+        for (long clock : clocks) buffer.putLong(clock);
+        buffer.putInt(nUsed);
+        for (int e = 0; e < used.length; e++) {
+            if (!used[e]) continue;
+            buffer.putInt(e);
+            buffer.putLong(hashes[e]);
+            buffer.putLong(lastUsed[e]);
+            IntArrays.putInts(buffer, genes, e * nTasks, nTasks);
+
+            FitnessBreakdown breakdown = breakdowns[e];
+            buffer.putInt(breakdown.taskOverlap);
+            buffer.putInt(breakdown.priorityInversions);
+            buffer.putInt(breakdown.reservedOverlap);
+            IntArrays.putInts(buffer, breakdown.taskReservedOverlaps, 0, nTasks);
+        }
+    }
+
+    /**
+     * Replace the contents of the cache with contents written by save() from a cache with the same capacity and number
+     * of tasks. The counters are kept. The cache must not be used while it is being loaded.
+     * @param buffer buffer to read from
+     * @throws IllegalArgumentException if the contents were saved from a cache with a different capacity
+     */
+    public void load(ByteBuffer buffer) {
+        int capacity = buffer.getInt();
+        if (capacity != getCapacity()) {
+            throw new IllegalArgumentException("Saved cache has capacity " + capacity + ", expected " + getCapacity());
+        }
+
+        Arrays.fill(used, false);
+        for (int s = 0; s < clocks.length; s++) clocks[s] = buffer.getLong();
+        int nUsed = buffer.getInt();
+        for (int i = 0; i < nUsed; i++) {
+            int e = buffer.getInt();
+            used[e] = true;
+            hashes[e] = buffer.getLong();
+            lastUsed[e] = buffer.getLong();
+            IntArrays.getInts(buffer, genes, e * nTasks, nTasks);
+
+            FitnessBreakdown breakdown = breakdowns[e];
+            breakdown.taskOverlap = buffer.getInt();
+            breakdown.priorityInversions = buffer.getInt();
+            breakdown.reservedOverlap = buffer.getInt();
+            IntArrays.getInts(buffer, breakdown.taskReservedOverlaps, 0, nTasks);
+        }
+    }
+
+    /**
+     * Get the number of lookups that found the schedule.
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that did not find the schedule.
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of schedules that have been evicted to make room for others.
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the maximum number of schedules the cache can hold.
+     * @return capacity
+     */
+    public int getCapacity() {
+        return nBuckets * WAYS;
+    }
+
+    // Find the entry holding a schedule in a bucket. Must hold the bucket's lock.
+    private int find(int bucket, long hash, int[] schedule, int offset) {
+        for (int e = bucket * WAYS; e < (bucket + 1) * WAYS; e++) {
+            if (used[e] && hashes[e] == hash
+                    && Arrays.equals(genes, e * nTasks, (e + 1) * nTasks, schedule, offset, offset + nTasks)) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    private int bucket(long hash) {
+        return (int) hash & (nBuckets - 1);
+    }
+
+    private int stripe(int bucket) {
+        return bucket & (locks.length - 1);
+    }
+}
@@ -0,0 +1,202 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.OverlapIndex;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the fitness breakdown of schedules.
+ *
+ * A schedule can either be evaluated from scratch or updated from an already evaluated schedule that differs from it
+ * in only a few tasks. An update only recalculates the terms involving the changed tasks, which takes O(k * n) time
+ * for k changed tasks instead of the O(n log n) of a full evaluation. When too many tasks have changed for an update
+ * to be worth it, a full evaluation is done instead.
+ *
+ * Instances keep scratch space between calls and must not be shared between threads; use copy() to get an instance for
+ * another thread.
+ *
+ * @author Jude Brauer
+ */
+public class FitnessEvaluator {
+    private final int nTasks;
+    private final int[] durations;
+    private final int[] priorities;
+    private final OverlapIndex reservedIntervals;
+    private final OverlapMethod overlapMethod;
+    private final FitnessKernel kernel;
+
+    // Most changed tasks for which an update is cheaper than a full evaluation
+    private final int maxChanges;
+
+    private final PriorityInversions inversions;
+
+    // Scratch space
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] sortedStarts;
+    private final int[] sortedEnds;
+    private final int[] changes;
+    private final boolean[] changed;
+    private final int[] totals = new int[2];
+
+    /**
+     * Initialize an evaluator for a set of tasks.
+     * @param durations duration of each task
+     * @param priorities priority of each task
+     * @param reservedIntervals index of reserved time intervals
+     * @param overlapMethod method used to calculate overlap between tasks
+     */
+    public FitnessEvaluator(int[] durations, int[] priorities, OverlapIndex reservedIntervals,
+                            OverlapMethod overlapMethod) {
+        this(durations, priorities, reservedIntervals, overlapMethod, FitnessKernel.SCALAR);
+    }
+
+    /**
+     * Initialize an evaluator for a set of tasks that runs its inner loops on the given kernel.
+     * @param durations duration of each task
+     * @param priorities priority of each task
+     * @param reservedIntervals index of reserved time intervals
+     * @param overlapMethod method used to calculate overlap between tasks
+     * @param kernel kernel comparing tasks with each other
+     */
+    public FitnessEvaluator(int[] durations, int[] priorities, OverlapIndex reservedIntervals,
+                            OverlapMethod overlapMethod, FitnessKernel kernel) {
+        this(durations.length, durations.clone(), priorities.clone(), reservedIntervals, overlapMethod, kernel,
+                new PriorityInversions(priorities));
+    }
+
+    private FitnessEvaluator(int nTasks, int[] durations, int[] priorities, OverlapIndex reservedIntervals,
+                             OverlapMethod overlapMethod, FitnessKernel kernel, PriorityInversions inversions) {
+        this.nTasks = nTasks;
+        this.durations = durations;
+        this.priorities = priorities;
+        this.reservedIntervals = reservedIntervals;
+        this.overlapMethod = overlapMethod;
+        this.kernel = kernel;
+        this.inversions = inversions;
+
+        // Both an update and a full evaluation look at every task, but an update visits every other task once for
+        // each changed task while a full evaluation sorts the tasks once
+        this.maxChanges = Math.max(1, 2 * (32 - Integer.numberOfLeadingZeros(nTasks)));
+
+        this.starts = new int[nTasks];
+        this.ends = new int[nTasks];
+        this.sortedStarts = new int[nTasks];
+        this.sortedEnds = new int[nTasks];
+        this.changes = new int[nTasks];
+        this.changed = new boolean[nTasks];
+    }
+
+    /**
+     * Create an evaluator for the same tasks that can be used on another thread.
+     * @return new evaluator
+     */
+    public FitnessEvaluator copy() {
+        return new FitnessEvaluator(nTasks, durations, priorities, reservedIntervals, overlapMethod, kernel,
+                inversions.copy());
+    }
+
+    /**
+     * Evaluate a schedule from scratch.
+     * @param schedule schedule to evaluate
+     * @param result breakdown to store the result in
+     */
+    public void evaluate(int[] schedule, FitnessBreakdown result) {
+        evaluate(schedule, 0, result);
+    }
+
+    /**
+     * Evaluate a schedule stored in a larger array from scratch.
+     * @param genes array containing the schedule to evaluate
+     * @param offset index of the schedule's first start time in genes
+     * @param result breakdown to store the result in
+     */
+    public void evaluate(int[] genes, int offset, FitnessBreakdown result) {
+        for (int i = 0; i < nTasks; i++) {
+            starts[i] = genes[offset + i];
+            ends[i] = starts[i] + durations[i];
+        }
+
+        if (overlapMethod == OverlapMethod.PAIRWISE) {
+            result.taskOverlap = kernel.pairwiseOverlap(starts, ends, nTasks);
+        } else {
+            System.arraycopy(starts, 0, sortedStarts, 0, nTasks);
+            System.arraycopy(ends, 0, sortedEnds, 0, nTasks);
+            Arrays.sort(sortedStarts);
+            Arrays.sort(sortedEnds);
+            result.taskOverlap = TaskOverlap.sweep(sortedStarts, sortedEnds, nTasks);
+        }
+
+        result.priorityInversions = inversions.count(starts);
+
+        int reservedOverlap = 0;
+        for (int i = 0; i < nTasks; i++) {
+            result.taskReservedOverlaps[i] = reservedIntervals.getOverlap(starts[i], ends[i]);
+            reservedOverlap += result.taskReservedOverlaps[i];
+        }
+        result.reservedOverlap = reservedOverlap;
+    }
+
+    /**
+     * Count the number of tasks with different start times in two schedules. Counting stops once there are too many
+     * changes for an update to be worth it.
+     * @param genes array containing the schedule
+     * @param offset index of the schedule's first start time in genes
+     * @param base array containing the schedule to compare to
+     * @param baseOffset index of the base schedule's first start time in base
+     * @return number of changed tasks, capped at one more than the most changes an update will be done for
+     */
+    public int countChanges(int[] genes, int offset, int[] base, int baseOffset) {
+        int n = 0;
+        for (int i = 0; i < nTasks && n <= maxChanges; i++) {
+            if (genes[offset + i] != base[baseOffset + i]) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Evaluate a schedule by updating the breakdown of an already evaluated schedule. Falls back to a full evaluation
+     * if too many tasks have changed. The result is always the same as evaluate().
+     * @param genes array containing the schedule to evaluate
+     * @param offset index of the schedule's first start time in genes
+     * @param base array containing the already evaluated schedule
+     * @param baseOffset index of the base schedule's first start time in base
+     * @param baseBreakdown breakdown of the base schedule
+     * @param result breakdown to store the result in, must not be baseBreakdown
+     */
+    public void update(int[] genes, int offset, int[] base, int baseOffset, FitnessBreakdown baseBreakdown,
+                       FitnessBreakdown result) {
+        // Find changed tasks
+        int nChanges = 0;
+        for (int i = 0; i < nTasks; i++) {
+            if (genes[offset + i] != base[baseOffset + i]) {
+                if (nChanges == maxChanges) {
+                    evaluate(genes, offset, result);
+                    return;
+                }
+                changes[nChanges++] = i;
+            }
+        }
+
+        result.copyFrom(baseBreakdown);
+
+        for (int c = 0; c < nChanges; c++) changed[changes[c]] = true;
+
+        // Change of the task overlap and priority inversions
+        totals[0] = 0;
+        totals[1] = 0;
+        for (int c = 0; c < nChanges; c++) {
+            int k = changes[c];
+            kernel.rowDelta(k, genes, offset, base, baseOffset, durations, priorities, changed, nTasks, totals);
+
+            int newStart = genes[offset + k];
+            int reserved = reservedIntervals.getOverlap(newStart, newStart + durations[k]);
+            result.reservedOverlap += reserved - result.taskReservedOverlaps[k];
+            result.taskReservedOverlaps[k] = reserved;
+        }
+        result.taskOverlap += totals[0];
+        result.priorityInversions += totals[1];
+
+        for (int c = 0; c < nChanges; c++) changed[changes[c]] = false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.jnbrauer.fitness;
+
+/**
+ * The inner loops of the fitness function, which compare one task with many other tasks.
+ *
+ * SCALAR compares one pair of tasks at a time. vector() returns a kernel that compares a task with several other tasks
+ * at once using the JDK Vector API, which is only available when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}; otherwise it returns SCALAR. Every kernel gives exactly the same results.
+ *
+ * Kernels are stateless and can be shared between threads.
+ *
+ * @author Jude Brauer
+ */
+public interface FitnessKernel {
+    /**
+     * Kernel comparing one pair of tasks at a time.
+     */
+    FitnessKernel SCALAR = new ScalarFitnessKernel();
+
+    /**
+     * Get the Vector API kernel if the jdk.incubator.vector module is available, otherwise SCALAR.
+     * @return fastest available kernel
+     */
+    static FitnessKernel vector() {
+        try {
+            return (FitnessKernel) Class.forName("com.jnbrauer.fitness.VectorFitnessKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // The module or the compiled kernel is missing
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Get a name describing the kernel.
+     * @return name of the kernel
+     */
+    String getName();
+
+    /**
+     * Calculate the total overlap of every pair of tasks, the same as TaskOverlap.pairwise().
+     * @param starts start time of each task
+     * @param ends end time of each task
+     * @param n number of tasks
+     * @return total overlap in minutes
+     */
+    int pairwiseOverlap(int[] starts, int[] ends, int n);
+
+    /**
+     * Calculate how the overlap and priority inversions between task k and every other task change when the start
+     * times of a schedule change. Pairs of k with itself and with changed tasks of lower index are skipped, since
+     * those pairs are visited from the other task. The changes are added to totals.
+     * @param k index of the task
+     * @param genes array containing the new schedule
+     * @param offset index of the new schedule's first start time in genes
+     * @param base array containing the old schedule
+     * @param baseOffset index of the old schedule's first start time in base
+     * @param durations duration of each task
+     * @param priorities priority of each task
+     * @param changed whether each task has a different start time in the two schedules
+     * @param n number of tasks
+     * @param totals change of the task overlap is added to totals[0] and of the priority inversions to totals[1]
+     */
+    void rowDelta(int k, int[] genes, int offset, int[] base, int baseOffset, int[] durations, int[] priorities,
+                  boolean[] changed, int n, int[] totals);
+}
@@ -0,0 +1,151 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.ReservedTime;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Improves a schedule by hill climbing: each task in turn is moved to the nearest start time next to a task or
+ * reserved time it overlaps with that improves the fitness, until no move helps or the budget is used up.
+ *
+ * Each move tried is evaluated by updating the breakdown of the schedule, which only recalculates the terms of the
+ * moved task, so a move costs O(n) instead of a full evaluation.
+ *
+ * Instances keep scratch space between calls and must not be shared between threads.
+ *
+ * @author Jude Brauer
+ */
+public class LocalSearch {
+    private final int nTasks;
+    private final int[] durations;
+    private final int maxTime;
+    private final ToIntFunction<FitnessBreakdown> fitness;
+
+    // Scratch space: the schedule being tried, its breakdown and the candidate start times of a task as
+    // (distance << 32 | start time)
+    private final int[] trial;
+    private final FitnessBreakdown trialBreakdown;
+    private long[] moves = new long[16];
+
+    // Number of moves evaluated by every call to climb()
+    private long evaluations = 0;
+
+    /**
+     * Initialize a local search for a set of tasks.
+     * @param durations duration of each task
+     * @param maxTime latest start time a task may be moved to
+     * @param fitness calculates the fitness of a breakdown, lower is better
+     */
+    public LocalSearch(int[] durations, int maxTime, ToIntFunction<FitnessBreakdown> fitness) {
+        this.nTasks = durations.length;
+        this.durations = durations.clone();
+        this.maxTime = maxTime;
+        this.fitness = fitness;
+        this.trial = new int[nTasks];
+        this.trialBreakdown = new FitnessBreakdown(nTasks);
+    }
+
+    /**
+     * Improve an evaluated schedule in place. The schedule and its breakdown are only changed by moves that improve
+     * the fitness.
+     * @param evaluator evaluator of the schedule, used by the calling thread only
+     * @param reservedTimes reserved times the evaluator was built with
+     * @param genes array containing the schedule
+     * @param offset offset of the schedule in genes
+     * @param breakdown fitness breakdown of the schedule, updated with every accepted move
+     * @param currentFitness fitness of the schedule
+     * @param budget maximum number of moves to evaluate
+     * @return fitness of the improved schedule
+     */
+    public int climb(FitnessEvaluator evaluator, ReservedTime[] reservedTimes, int[] genes, int offset,
+                     FitnessBreakdown breakdown, int currentFitness, int budget) {
+        int best = currentFitness;
+        System.arraycopy(genes, offset, trial, 0, nTasks);
+
+        boolean improved = true;
+        while (improved && budget > 0) {
+            improved = false;
+
+            for (int task = 0; task < nTasks && budget > 0; task++) {
+                int nMoves = slideTargets(genes, offset, task, reservedTimes);
+
+                for (int m = 0; m < nMoves && budget > 0; m++) {
+                    trial[task] = (int) moves[m];
+                    evaluator.update(trial, 0, genes, offset, breakdown, trialBreakdown);
+                    budget--;
+                    evaluations++;
+
+                    int trialFitness = fitness.applyAsInt(trialBreakdown);
+                    if (trialFitness < best) {
+                        genes[offset + task] = trial[task];
+                        breakdown.copyFrom(trialBreakdown);
+                        best = trialFitness;
+                        improved = true;
+                        break;
+                    }
+                }
+                trial[task] = genes[offset + task];
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Get the number of moves evaluated so far, over every call to climb().
+     * @return number of evaluator calls
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    // Find the start times that slide a task just before or just after each task and reserved time it overlaps
+    // with. They are stored in moves, nearest first, and their number is returned.
+    private int slideTargets(int[] genes, int offset, int task, ReservedTime[] reservedTimes) {
+        int start = genes[offset + task];
+        int duration = durations[task];
+        int end = start + duration;
+        if (duration == 0) return 0;
+
+        int n = 0;
+        for (int j = 0; j < nTasks; j++) {
+            int otherStart = genes[offset + j];
+            int otherEnd = otherStart + durations[j];
+            if (j != task && otherStart < end && start < otherEnd) {
+                n = addMove(n, start, otherEnd);
+                n = addMove(n, start, otherStart - duration);
+            }
+        }
+
+        for (ReservedTime reserved : reservedTimes) {
+            // Repetitions overlapping the task
+            int startOffset = reserved.getStartOffset();
+            int period = reserved.getPeriod();
+            int first = Math.max(0, Math.floorDiv(start - reserved.getDuration() - startOffset, period) + 1);
+            int last = Math.min(reserved.nIntervals(maxTime) - 1, Math.floorDiv(end - 1 - startOffset, period));
+            for (int k = first; k <= last; k++) {
+                int reservedStart = startOffset + k * period;
+                n = addMove(n, start, reservedStart + reserved.getDuration());
+                n = addMove(n, start, reservedStart - duration);
+            }
+        }
+
+        // Sort nearest first and drop duplicates
+        Arrays.sort(moves, 0, n);
+        int unique = 0;
+        for (int m = 0; m < n; m++) {
+            if (unique == 0 || moves[m] != moves[unique - 1]) moves[unique++] = moves[m];
+        }
+        return unique;
+    }
+
+    // Add a candidate start time to the moves if it is a valid start time other than the current one
+    private int addMove(int n, int start, int target) {
+        if (target < 0 || target > maxTime || target == start) return n;
+
+        if (n == moves.length) moves = Arrays.copyOf(moves, 2 * n);
+        moves[n] = (long) Math.abs(target - start) << 32 | target;
+        return n + 1;
+    }
+}
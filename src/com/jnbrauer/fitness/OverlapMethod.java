@@ -0,0 +1,17 @@
+package com.jnbrauer.fitness;
+
+/**
+ * Method used to calculate the total overlap between the tasks of a schedule.
+ *
+ * @author Jude Brauer
+ */
+public enum OverlapMethod {
+    /**
+     * Check the overlap of every pair of tasks. O(n^2), but fastest for a small number of tasks.
+     */
+    PAIRWISE,
+    /**
+     * Sort the start and end times and sweep over them counting the number of active tasks. O(n log n).
+     */
+    SWEEP
+}
@@ -0,0 +1,146 @@
+package com.jnbrauer.fitness;
+
+import java.util.Arrays;
+
+/**
+ * Counts priority inversions in a schedule. A pair of tasks is inverted when the task that starts first has a greater
+ * priority value than the task that starts later. Each inverted pair is weighted by the difference of their priorities.
+ *
+ * Inversions are counted in O(n log n) by visiting the tasks in order of start time and using a Fenwick tree indexed by
+ * priority to sum the priorities of all earlier tasks with a greater priority value.
+ *
+ * Instances keep scratch space between calls and must not be shared between threads; use copy() to get an instance for
+ * another thread.
+ *
+ * @author Jude Brauer
+ */
+public class PriorityInversions {
+    // Priority of each task
+    private final int[] priorities;
+    // Rank of each task's priority among all distinct priorities, starting at 1
+    private final int[] ranks;
+    // Number of distinct priorities
+    private final int nRanks;
+
+    // Scratch space: tasks packed as (start, index) to be sorted by start time
+    private final long[] order;
+    // Scratch space: Fenwick trees of the number of tasks and sum of priorities by priority rank
+    private final long[] counts;
+    private final long[] sums;
+
+    /**
+     * Initialize the counter for a set of tasks.
+     * @param priorities priority of each task
+     */
+    public PriorityInversions(int[] priorities) {
+        this.priorities = priorities.clone();
+
+        int[] distinct = Arrays.stream(priorities).distinct().sorted().toArray();
+        this.nRanks = distinct.length;
+        this.ranks = new int[priorities.length];
+        for (int i = 0; i < priorities.length; i++) {
+            ranks[i] = Arrays.binarySearch(distinct, priorities[i]) + 1;
+        }
+
+        this.order = new long[priorities.length];
+        this.counts = new long[nRanks + 1];
+        this.sums = new long[nRanks + 1];
+    }
+
+    // Create a counter sharing the task data of another counter but with its own scratch space
+    private PriorityInversions(PriorityInversions other) {
+        this.priorities = other.priorities;
+        this.ranks = other.ranks;
+        this.nRanks = other.nRanks;
+
+        this.order = new long[priorities.length];
+        this.counts = new long[nRanks + 1];
+        this.sums = new long[nRanks + 1];
+    }
+
+    /**
+     * Create a counter for the same tasks that can be used on another thread.
+     * @return new counter
+     */
+    public PriorityInversions copy() {
+        return new PriorityInversions(this);
+    }
+
+    /**
+     * Count the weighted priority inversions of a schedule.
+     * @param starts start time of each task
+     * @return sum of the priority differences of all inverted pairs
+     */
+    public int count(int[] starts) {
+        int n = priorities.length;
+
+        for (int i = 0; i < n; i++) order[i] = ((long) starts[i] << 32) | i;
+        Arrays.sort(order, 0, n);
+
+        Arrays.fill(counts, 0);
+        Arrays.fill(sums, 0);
+        long totalCount = 0;
+        long totalSum = 0;
+
+        long inversions = 0;
+        int group = 0;
+        while (group < n) {
+            // Tasks with equal start times are not inverted with each other, so query all of them before adding them
+            int groupEnd = group + 1;
+            while (groupEnd < n && (int) (order[groupEnd] >> 32) == (int) (order[group] >> 32)) groupEnd++;
+
+            for (int k = group; k < groupEnd; k++) {
+                int task = (int) order[k];
+                long greaterCount = totalCount - prefix(counts, ranks[task]);
+                long greaterSum = totalSum - prefix(sums, ranks[task]);
+                inversions += greaterSum - greaterCount * priorities[task];
+            }
+
+            for (int k = group; k < groupEnd; k++) {
+                int task = (int) order[k];
+                add(counts, ranks[task], 1);
+                add(sums, ranks[task], priorities[task]);
+                totalCount++;
+                totalSum += priorities[task];
+            }
+
+            group = groupEnd;
+        }
+
+        return (int) inversions;
+    }
+
+    /**
+     * Count the weighted priority inversions of a schedule by checking every pair of tasks. O(n^2).
+     * @param starts start time of each task
+     * @param priorities priority of each task
+     * @param n number of tasks
+     * @return sum of the priority differences of all inverted pairs
+     */
+    public static int pairwise(int[] starts, int[] priorities, int n) {
+        int inversions = 0;
+
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if ((starts[i] < starts[j] && priorities[i] > priorities[j])
+                        || (starts[i] > starts[j] && priorities[i] < priorities[j])) {
+                    inversions += Math.abs(priorities[i] - priorities[j]);
+                }
+            }
+        }
+
+        return inversions;
+    }
+
+    // Sum of the Fenwick tree values for ranks [1, rank]
+    private static long prefix(long[] tree, int rank) {
+        long sum = 0;
+        for (int i = rank; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    // Add a value to the Fenwick tree at the given rank
+    private void add(long[] tree, int rank, long value) {
+        for (int i = rank; i <= nRanks; i += i & -i) tree[i] += value;
+    }
+}
@@ -0,0 +1,455 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.utils.IntArrays;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates schedules on EvaluationWorker processes connected over TCP or Unix-domain sockets.
+ *
+ * The problem is sent to every worker once by setProblem(). After that only the start times of the schedules are sent
+ * to the workers, in batches, and their fitness breakdowns are sent back. Each connection keeps up to IN_FLIGHT batches
+ * queued at its worker, so a worker starts on its next batch while the results of the previous one are on their way.
+ *
+ * A worker that disconnects, sends something unexpected or takes longer than the timeout to answer its oldest batch is
+ * dropped and its unfinished batches are sent to the other workers; once every worker has been dropped the remaining
+ * schedules are evaluated locally. Workers evaluate schedules
+ * from scratch, which gives exactly the same breakdowns as evaluating them locally, so the results never depend on
+ * which workers took part.
+ *
+ * Messages are sequences of big-endian ints:
+ * <pre>
+ * PROBLEM  maxTime, nTasks, durations[nTasks], priorities[nTasks], nReserved,
+ *          (startOffset, duration, period)[nReserved], overlap method ordinal, overlap index type ordinal
+ * BATCH    batch, count, start times[count * nTasks]
+ * result   batch, count, (taskOverlap, priorityInversions, reservedOverlap, taskReservedOverlaps[nTasks])[count]
+ * </pre>
+ * The worker answers every BATCH with a result, in the order the batches were sent.
+ *
+ * One thread at a time may call setProblem() and evaluate(); each connection has its own thread receiving results.
+ *
+ * @author Jude Brauer
+ */
+public class RemoteEvaluator implements AutoCloseable {
+    // Message types sent to workers
+    static final int PROBLEM = 1;
+    static final int BATCH = 2;
+
+    // Number of batches queued at each worker
+    private static final int IN_FLIGHT = 2;
+
+    /**
+     * Default time a worker has to answer its oldest batch before it is dropped, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT = 30_000;
+
+    private final int batchSize;
+    private final long timeoutNanos;
+    private final List<Connection> connections = new ArrayList<>();
+    private int nAlive;
+
+    // Problem sent to the workers
+    private int nTasks = 0;
+
+    // Schedules being evaluated and where their breakdowns go. Set before any of their batches are sent.
+    private int[] genes;
+    private int[] indices;
+    private int nIndices;
+    private FitnessBreakdown[] results;
+
+    // Batches not sent to any worker yet, and the number of batches without results. Guarded by this.
+    private int[] pending = new int[0];
+    private int nPending;
+    private int nRemaining;
+
+    /**
+     * Connect to a set of workers with the default timeout. Workers that can not be reached are left out.
+     * @param workers addresses of the workers, either InetSocketAddress or UnixDomainSocketAddress. An address can be
+     *                listed several times to have the worker evaluate several batches at once.
+     * @param batchSize number of schedules sent to a worker at once
+     */
+    public RemoteEvaluator(List<? extends SocketAddress> workers, int batchSize) {
+        this(workers, batchSize, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Connect to a set of workers. Workers that can not be reached are left out.
+     * @param workers addresses of the workers, either InetSocketAddress or UnixDomainSocketAddress. An address can be
+     *                listed several times to have the worker evaluate several batches at once.
+     * @param batchSize number of schedules sent to a worker at once
+     * @param timeout milliseconds a worker has to answer its oldest batch before it is dropped as hung
+     */
+    public RemoteEvaluator(List<? extends SocketAddress> workers, int batchSize, long timeout) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+        if (timeout < 1) throw new IllegalArgumentException("timeout must be at least 1");
+        this.batchSize = batchSize;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        for (SocketAddress address : workers) {
+            try {
+                SocketChannel channel = SocketChannel.open(address);
+                if (address instanceof InetSocketAddress) channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                Connection connection = new Connection(address, channel);
+                connections.add(connection);
+                nAlive++;
+                connection.receiver.start();
+            } catch (IOException e) {
+                System.err.println("Could not connect to evaluation worker " + address + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of workers that are still connected.
+     * @return number of connected workers
+     */
+    public synchronized int getWorkerCount() {
+        return nAlive;
+    }
+
+    /**
+     * Send the problem the following schedules belong to to every worker.
+     * @param maxTime max amount of time in which all tasks must be completed
+     * @param durations duration of each task
+     * @param priorities priority of each task
+     * @param reservedTimes reserved times
+     * @param overlapMethod method the workers use to calculate overlap between tasks
+     * @param indexType type of overlap index the workers build from the reserved times
+     */
+    public void setProblem(int maxTime, int[] durations, int[] priorities, ReservedTime[] reservedTimes,
+                           OverlapMethod overlapMethod, OverlapIndexType indexType) {
+        int n = durations.length;
+        ByteBuffer message = ByteBuffer.allocate((6 + 2 * n + 3 * reservedTimes.length) * Integer.BYTES);
+        message.putInt(PROBLEM);
+        message.putInt(maxTime);
+        message.putInt(n);
+        IntArrays.putInts(message, durations, 0, n);
+        IntArrays.putInts(message, priorities, 0, n);
+        message.putInt(reservedTimes.length);
+        for (ReservedTime reservedTime : reservedTimes) {
+            message.putInt(reservedTime.getStartOffset());
+            message.putInt(reservedTime.getDuration());
+            message.putInt(reservedTime.getPeriod());
+        }
+        message.putInt(overlapMethod.ordinal());
+        message.putInt(indexType.ordinal());
+
+        synchronized (this) {
+            this.nTasks = n;
+        }
+        for (Connection connection : connections) {
+            // Dropped workers are closed, so writing to them fails without dropping them again
+            try {
+                connection.resize(n);
+                message.rewind();
+                writeFully(connection.channel, message);
+            } catch (IOException e) {
+                fail(connection, e);
+            }
+        }
+    }
+
+    /**
+     * Evaluate schedules from scratch, the same as calling fallback.evaluate() on each of them.
+     * @param genes array containing the schedules, one after the other
+     * @param indices index in genes of each schedule to evaluate, counted in schedules
+     * @param n number of schedules to evaluate
+     * @param results breakdown of each schedule in genes, stored at the same index as the schedule
+     * @param fallback evaluator for schedules left over when no worker is connected
+     */
+    public void evaluate(int[] genes, int[] indices, int n, FitnessBreakdown[] results, FitnessEvaluator fallback) {
+        int nBatches = (n + batchSize - 1) / batchSize;
+        boolean interrupted = false;
+
+        synchronized (this) {
+            this.genes = genes;
+            this.indices = indices;
+            this.nIndices = n;
+            this.results = results;
+            if (pending.length < nBatches) pending = new int[nBatches];
+            // Batches are taken from the end, so the first batch is sent first
+            for (int b = 0; b < nBatches; b++) pending[b] = nBatches - 1 - b;
+            nPending = nBatches;
+            nRemaining = nBatches;
+        }
+
+        while (true) {
+            Connection connection = null;
+            Connection hung = null;
+            int batch = -1;
+
+            synchronized (this) {
+                // Wait for a batch to send and a worker with room for it, unless every worker has been dropped or a
+                // worker has not answered in time
+                while (nRemaining > 0) {
+                    if (nPending > 0) {
+                        if (nAlive == 0) break;
+                        connection = idleConnection();
+                        if (connection != null) break;
+                    }
+
+                    long now = System.nanoTime();
+                    hung = hungConnection(now);
+                    if (hung != null) break;
+                    try {
+                        waitForDeadline(now);
+                    } catch (InterruptedException e) {
+                        // The results are still needed, so keep waiting for them
+                        interrupted = true;
+                    }
+                }
+                if (nRemaining == 0) break;
+
+                if (hung == null) {
+                    batch = pending[--nPending];
+                    if (connection != null) connection.push(batch);
+                }
+            }
+
+            if (hung != null) {
+                fail(hung, new SocketTimeoutException("No result for " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos)
+                        + " ms"));
+            } else if (connection != null) {
+                send(connection, batch);
+            } else {
+                // Every worker has been dropped
+                for (int k = batch * batchSize; k < Math.min(n, (batch + 1) * batchSize); k++) {
+                    fallback.evaluate(genes, indices[k] * nTasks, results[indices[k]]);
+                }
+                synchronized (this) {
+                    nRemaining--;
+                }
+            }
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Disconnect from every worker.
+     */
+    @Override
+    public void close() {
+        for (Connection connection : connections) {
+            synchronized (this) {
+                connection.alive = false;
+            }
+            closeQuietly(connection.channel);
+        }
+    }
+
+    // Find the connected worker with the fewest batches queued, if any of them has room for another batch. Must hold
+    // the lock.
+    private Connection idleConnection() {
+        Connection idle = null;
+        for (Connection connection : connections) {
+            if (connection.alive && connection.nInFlight < IN_FLIGHT
+                    && (idle == null || connection.nInFlight < idle.nInFlight)) {
+                idle = connection;
+            }
+        }
+        return idle;
+    }
+
+    // Find a connected worker whose oldest batch has been queued longer than the timeout, if any. Must hold the lock.
+    private Connection hungConnection(long now) {
+        for (Connection connection : connections) {
+            if (connection.alive && connection.nInFlight > 0 && now - connection.lastProgress > timeoutNanos) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    // Wait until notified or until the oldest batch of a worker is due. Must hold the lock.
+    private void waitForDeadline(long now) throws InterruptedException {
+        long wait = Long.MAX_VALUE;
+        for (Connection connection : connections) {
+            if (connection.alive && connection.nInFlight > 0) {
+                wait = Math.min(wait, connection.lastProgress + timeoutNanos - now);
+            }
+        }
+
+        if (wait == Long.MAX_VALUE) wait();
+        else TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, wait));
+    }
+
+    // Send a batch of schedules to a worker
+    private void send(Connection connection, int batch) {
+        int first = batch * batchSize;
+        int count = Math.min(nIndices, first + batchSize) - first;
+
+        ByteBuffer message = connection.sendBuffer;
+        message.clear();
+        message.putInt(BATCH);
+        message.putInt(batch);
+        message.putInt(count);
+        for (int k = first; k < first + count; k++) IntArrays.putInts(message, genes, indices[k] * nTasks, nTasks);
+        message.flip();
+
+        try {
+            writeFully(connection.channel, message);
+        } catch (IOException e) {
+            fail(connection, e);
+        }
+    }
+
+    // Drop a worker and queue its unfinished batches again
+    private void fail(Connection connection, Exception cause) {
+        synchronized (this) {
+            if (!connection.alive) return;
+            connection.alive = false;
+            nAlive--;
+
+            while (connection.nInFlight > 0) pending[nPending++] = connection.pop();
+            notifyAll();
+        }
+
+        System.err.println("Dropped evaluation worker " + connection.address + ": " + cause);
+        closeQuietly(connection.channel);
+    }
+
+    /**
+     * A connection to a worker and the batches queued at it, in the order they were sent.
+     */
+    private final class Connection {
+        private final SocketAddress address;
+        private final SocketChannel channel;
+        private final Thread receiver;
+
+        // Guarded by the evaluator's lock. lastProgress is when the oldest queued batch became the oldest, either by
+        // being queued to an idle worker or by the result of the batch before it arriving.
+        private boolean alive = true;
+        private final int[] inFlight = new int[IN_FLIGHT];
+        private int first = 0;
+        private int nInFlight = 0;
+        private long lastProgress;
+
+        // Only used by the thread calling evaluate(), and by the receiver while a batch is queued
+        private ByteBuffer sendBuffer = ByteBuffer.allocate(0);
+        private volatile ByteBuffer receiveBuffer = ByteBuffer.allocate(0);
+
+        Connection(SocketAddress address, SocketChannel channel) {
+            this.address = address;
+            this.channel = channel;
+            this.receiver = new Thread(this::receive, "evaluation-worker-" + address);
+            receiver.setDaemon(true);
+        }
+
+        // Make room for batches of a problem with the given number of tasks
+        void resize(int nTasks) {
+            int sendBytes = (3 + batchSize * nTasks) * Integer.BYTES;
+            int receiveBytes = batchSize * (3 + nTasks) * Integer.BYTES;
+            if (sendBuffer.capacity() < sendBytes) sendBuffer = ByteBuffer.allocateDirect(sendBytes);
+            if (receiveBuffer.capacity() < receiveBytes) receiveBuffer = ByteBuffer.allocateDirect(receiveBytes);
+        }
+
+        // Queue a batch. Must hold the lock.
+        void push(int batch) {
+            if (nInFlight == 0) lastProgress = System.nanoTime();
+            inFlight[(first + nInFlight) % IN_FLIGHT] = batch;
+            nInFlight++;
+        }
+
+        // Take the oldest queued batch. Must hold the lock.
+        int pop() {
+            int batch = inFlight[first];
+            first = (first + 1) % IN_FLIGHT;
+            nInFlight--;
+            return batch;
+        }
+
+        // Receive results until the worker disconnects
+        private void receive() {
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+            try {
+                while (true) {
+                    header.clear();
+                    readFully(channel, header);
+                    header.flip();
+                    int batch = header.getInt();
+                    int count = header.getInt();
+
+                    int n;
+                    synchronized (RemoteEvaluator.this) {
+                        if (nInFlight == 0 || inFlight[first] != batch) {
+                            throw new IOException("Unexpected result for batch " + batch);
+                        }
+                        if (count != Math.min(nIndices, (batch + 1) * batchSize) - batch * batchSize) {
+                            throw new IOException("Result for batch " + batch + " has " + count + " schedules");
+                        }
+                        n = nTasks;
+                    }
+
+                    ByteBuffer body = receiveBuffer;
+                    body.clear().limit(count * (3 + n) * Integer.BYTES);
+                    readFully(channel, body);
+                    body.flip();
+
+                    synchronized (RemoteEvaluator.this) {
+                        // The batches of a dropped worker are queued again, so its results must not be stored
+                        if (!alive) return;
+
+                        for (int k = batch * batchSize; k < batch * batchSize + count; k++) {
+                            FitnessBreakdown result = results[indices[k]];
+                            result.taskOverlap = body.getInt();
+                            result.priorityInversions = body.getInt();
+                            result.reservedOverlap = body.getInt();
+                            IntArrays.getInts(body, result.taskReservedOverlaps, 0, n);
+                        }
+                        pop();
+                        lastProgress = System.nanoTime();
+                        nRemaining--;
+                        RemoteEvaluator.this.notifyAll();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(this, e);
+            }
+        }
+    }
+
+    /**
+     * Read from a channel until the buffer is full.
+     * @param channel channel to read from
+     * @param buffer buffer to fill up to its limit
+     * @throws IOException if the channel could not be read or ended first
+     */
+    static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Connection closed");
+        }
+    }
+
+    /**
+     * Write the remaining contents of a buffer to a channel.
+     * @param channel channel to write to
+     * @param buffer buffer to write up to its limit
+     * @throws IOException if the channel could not be written
+     */
+    static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    // Close a channel, ignoring errors since it is no longer used either way
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to do with the channel
+        }
+    }
+}
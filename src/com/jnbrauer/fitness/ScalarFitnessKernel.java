@@ -0,0 +1,63 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.Interval;
+
+/**
+ * Fitness kernel comparing one pair of tasks at a time.
+ *
+ * @author Jude Brauer
+ */
+final class ScalarFitnessKernel implements FitnessKernel {
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public int pairwiseOverlap(int[] starts, int[] ends, int n) {
+        return TaskOverlap.pairwise(starts, ends, n);
+    }
+
+    @Override
+    public void rowDelta(int k, int[] genes, int offset, int[] base, int baseOffset, int[] durations, int[] priorities,
+                         boolean[] changed, int n, int[] totals) {
+        rowDelta(k, 0, n, genes, offset, base, baseOffset, durations, priorities, changed, totals);
+    }
+
+    /**
+     * Calculate the changes of rowDelta() for the other tasks with index in [from, to). Used by other kernels for the
+     * tasks that do not fill a whole vector.
+     */
+    static void rowDelta(int k, int from, int to, int[] genes, int offset, int[] base, int baseOffset, int[] durations,
+                         int[] priorities, boolean[] changed, int[] totals) {
+        int newStart = genes[offset + k];
+        int oldStart = base[baseOffset + k];
+        int taskOverlap = 0;
+        int priorityInversions = 0;
+
+        for (int j = from; j < to; j++) {
+            // Pairs of two changed tasks are only visited from the task with the lower index
+            if (j == k || (changed[j] && j < k)) continue;
+
+            // Remove the terms of the pair in the base schedule and add the terms in the new schedule
+            int newOther = genes[offset + j];
+            int oldOther = base[baseOffset + j];
+            taskOverlap += Interval.overlap(newStart, newStart + durations[k], newOther, newOther + durations[j]);
+            taskOverlap -= Interval.overlap(oldStart, oldStart + durations[k], oldOther, oldOther + durations[j]);
+
+            priorityInversions += inversion(newStart, newOther, priorities[k], priorities[j]);
+            priorityInversions -= inversion(oldStart, oldOther, priorities[k], priorities[j]);
+        }
+
+        totals[0] += taskOverlap;
+        totals[1] += priorityInversions;
+    }
+
+    // Weighted priority inversion of a single pair of tasks
+    private static int inversion(int start1, int start2, int priority1, int priority2) {
+        if ((start1 < start2 && priority1 > priority2) || (start1 > start2 && priority1 < priority2)) {
+            return Math.abs(priority1 - priority2);
+        }
+        return 0;
+    }
+}
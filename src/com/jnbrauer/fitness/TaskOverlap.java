@@ -0,0 +1,93 @@
+package com.jnbrauer.fitness;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the total overlap between a set of tasks, which is the sum of the overlap in minutes of every pair of
+ * tasks. Tasks are given as arrays of start and end times.
+ *
+ * @author Jude Brauer
+ */
+public final class TaskOverlap {
+    private TaskOverlap() {
+    }
+
+    /**
+     * Calculate the total overlap using the given method.
+     * @param method method to use
+     * @param starts start time of each task
+     * @param ends end time of each task
+     * @param n number of tasks
+     * @return total overlap in minutes
+     */
+    public static int total(OverlapMethod method, int[] starts, int[] ends, int n) {
+        if (method == OverlapMethod.PAIRWISE) return pairwise(starts, ends, n);
+
+        int[] sortedStarts = Arrays.copyOf(starts, n);
+        int[] sortedEnds = Arrays.copyOf(ends, n);
+        Arrays.sort(sortedStarts);
+        Arrays.sort(sortedEnds);
+
+        return sweep(sortedStarts, sortedEnds, n);
+    }
+
+    /**
+     * Calculate the total overlap by checking every pair of tasks.
+     * @param starts start time of each task
+     * @param ends end time of each task
+     * @param n number of tasks
+     * @return total overlap in minutes
+     */
+    public static int pairwise(int[] starts, int[] ends, int n) {
+        int overlap = 0;
+
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                overlap += Math.max(0, Math.min(ends[i], ends[j]) - Math.max(starts[i], starts[j]));
+            }
+        }
+
+        return overlap;
+    }
+
+    /**
+     * Calculate the total overlap by sweeping over the sorted start and end times.
+     *
+     * While k tasks are active at the same time, each of the k * (k - 1) / 2 pairs of those tasks overlaps, so the
+     * total overlap is the sum of k * (k - 1) / 2 over every minute. The result is the same as pairwise(), including
+     * integer overflow.
+     *
+     * @param sortedStarts start times sorted in ascending order
+     * @param sortedEnds end times sorted in ascending order
+     * @param n number of tasks
+     * @return total overlap in minutes
+     */
+    public static int sweep(int[] sortedStarts, int[] sortedEnds, int n) {
+        long overlap = 0;
+        long active = 0;
+        int previous = 0;
+
+        int s = 0, e = 0;
+        // Every task ends, so the sweep is done once all end times have been passed
+        while (e < n) {
+            int time;
+            boolean isStart = s < n && sortedStarts[s] <= sortedEnds[e];
+            if (isStart) time = sortedStarts[s];
+            else time = sortedEnds[e];
+
+            // Add overlap of all active pairs since the last event
+            overlap += (long) (time - previous) * (active * (active - 1) / 2);
+            previous = time;
+
+            if (isStart) {
+                active++;
+                s++;
+            } else {
+                active--;
+                e++;
+            }
+        }
+
+        return (int) overlap;
+    }
+}
@@ -0,0 +1,113 @@
+package com.jnbrauer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted for each generation of a Scheduler run.
+ *
+ * Recorded whenever a flight recording with the event enabled is running, for example when the JVM is started with
+ * -XX:StartFlightRecording.
+ *
+ * The event is committed once the generation is done, so its own duration is close to 0 and its start time is the end
+ * of the generation. The time of the whole generation is recorded in Total Time.
+ *
+ * @author Jude Brauer
+ */
+@Name("com.jnbrauer.Generation")
+@Label("Scheduler Generation")
+@Category("Scheduler")
+@Description("Timing and allocation of one generation of the genetic algorithm")
+public class GenerationEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(GenerationEvent.class);
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Best Fitness")
+    int bestFitness;
+
+    @Label("Average Fitness")
+    double avgFitness;
+
+    @Label("Evaluations")
+    int evaluations;
+
+    @Label("Evaluation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluationTime;
+
+    @Label("Local Search Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long localSearchTime;
+
+    @Label("Selection Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long selectionTime;
+
+    @Label("Crossover Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long crossoverTime;
+
+    @Label("Mutation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long mutationTime;
+
+    @Label("Logging Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long loggingTime;
+
+    @Label("Total Time")
+    @Description("Wall-clock time of the whole generation")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    @Label("Cache Misses")
+    long cacheMisses;
+
+    /**
+     * Check if the event is enabled in a running recording.
+     * @return true if events will be recorded
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Record an event for a generation that has just ended, with the time of the whole generation as Total Time.
+     * @param metrics metrics of the generation
+     */
+    public static void emit(GenerationMetrics metrics) {
+        GenerationEvent event = new GenerationEvent();
+        if (!event.shouldCommit()) return;
+
+        event.generation = metrics.getGeneration();
+        event.bestFitness = metrics.getBestFitness();
+        event.avgFitness = metrics.getAvgFitness();
+        event.evaluations = metrics.getEvaluations();
+        event.evaluationTime = metrics.getEvaluationNanos();
+        event.localSearchTime = metrics.getLocalSearchNanos();
+        event.selectionTime = metrics.getSelectionNanos();
+        event.crossoverTime = metrics.getCrossoverNanos();
+        event.mutationTime = metrics.getMutationNanos();
+        event.loggingTime = metrics.getLoggingNanos();
+        event.totalTime = metrics.getTotalNanos();
+        event.allocated = metrics.getAllocatedBytes();
+        event.cacheHits = metrics.getCacheHits();
+        event.cacheMisses = metrics.getCacheMisses();
+        event.commit();
+    }
+}
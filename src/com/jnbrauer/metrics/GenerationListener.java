@@ -0,0 +1,17 @@
+package com.jnbrauer.metrics;
+
+/**
+ * Receives the metrics of each generation of a Scheduler run.
+ *
+ * Listeners are called on the thread running the scheduler after each generation and should return quickly.
+ *
+ * @author Jude Brauer
+ */
+@FunctionalInterface
+public interface GenerationListener {
+    /**
+     * Called after a generation has been evaluated, logged and bred.
+     * @param metrics metrics of the generation
+     */
+    void generationCompleted(GenerationMetrics metrics);
+}
@@ -0,0 +1,189 @@
+package com.jnbrauer.metrics;
+
+/**
+ * Timing and allocation metrics of a single generation of a Scheduler run.
+ *
+ * Evaluation, local search, logging and total times are wall-clock times. Selection, crossover and mutation are interleaved while
+ * breeding, so their times are summed over all workers; with more than one worker they can add up to more than the
+ * wall-clock time of breeding.
+ *
+ * @author Jude Brauer
+ */
+public class GenerationMetrics {
+    private final int generation;
+    private final int bestFitness;
+    private final double avgFitness;
+    private final int evaluations;
+
+    private final long evaluationNanos;
+    private final long localSearchNanos;
+    private final long selectionNanos;
+    private final long crossoverNanos;
+    private final long mutationNanos;
+    private final long loggingNanos;
+    private final long totalNanos;
+
+    private final long allocatedBytes;
+
+    private final long cacheHits;
+    private final long cacheMisses;
+
+    /**
+     * Create the metrics of a generation.
+     * @param generation index of the generation, starting at 0
+     * @param bestFitness best fitness in the generation
+     * @param avgFitness average fitness of the generation
+     * @param evaluations number of calls to the fitness evaluators, including those made by local search
+     * @param evaluationNanos wall-clock time spent evaluating the new schedules
+     * @param localSearchNanos wall-clock time spent in local search
+     * @param selectionNanos time spent in selection, summed over all workers
+     * @param crossoverNanos time spent in crossover, summed over all workers
+     * @param mutationNanos time spent in mutation, summed over all workers
+     * @param loggingNanos wall-clock time spent calculating statistics and logging
+     * @param totalNanos wall-clock time of the whole generation
+     * @param allocatedBytes bytes allocated by the scheduler and its workers, or -1 if not supported by the JVM
+     * @param cacheHits number of schedules whose fitness was found in the fitness cache
+     * @param cacheMisses number of schedules whose fitness was not found in the fitness cache
+     */
+    public GenerationMetrics(int generation, int bestFitness, double avgFitness, int evaluations,
+                             long evaluationNanos, long localSearchNanos, long selectionNanos, long crossoverNanos,
+                             long mutationNanos, long loggingNanos, long totalNanos, long allocatedBytes,
+                             long cacheHits, long cacheMisses) {
+        this.generation = generation;
+        this.bestFitness = bestFitness;
+        this.avgFitness = avgFitness;
+        this.evaluations = evaluations;
+        this.evaluationNanos = evaluationNanos;
+        this.localSearchNanos = localSearchNanos;
+        this.selectionNanos = selectionNanos;
+        this.crossoverNanos = crossoverNanos;
+        this.mutationNanos = mutationNanos;
+        this.loggingNanos = loggingNanos;
+        this.totalNanos = totalNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * Get the index of the generation, starting at 0.
+     * @return generation index
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the best fitness in the generation.
+     * @return best fitness
+     */
+    public int getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * Get the average fitness of the generation.
+     * @return average fitness
+     */
+    public double getAvgFitness() {
+        return avgFitness;
+    }
+
+    /**
+     * Get the number of calls to the fitness evaluators, including those made by local search. Schedules found in
+     * the fitness cache are not counted.
+     * @return number of evaluations
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Get the wall-clock time spent evaluating the generation.
+     * @return evaluation time in nanoseconds
+     */
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    /**
+     * Get the wall-clock time spent in local search after evaluating the generation.
+     * @return local search time in nanoseconds
+     */
+    public long getLocalSearchNanos() {
+        return localSearchNanos;
+    }
+
+    /**
+     * Get the time spent selecting parents, summed over all workers.
+     * @return selection time in nanoseconds
+     */
+    public long getSelectionNanos() {
+        return selectionNanos;
+    }
+
+    /**
+     * Get the time spent on crossover, summed over all workers.
+     * @return crossover time in nanoseconds
+     */
+    public long getCrossoverNanos() {
+        return crossoverNanos;
+    }
+
+    /**
+     * Get the time spent on mutation, summed over all workers.
+     * @return mutation time in nanoseconds
+     */
+    public long getMutationNanos() {
+        return mutationNanos;
+    }
+
+    /**
+     * Get the wall-clock time spent calculating statistics and logging the generation.
+     * @return logging time in nanoseconds
+     */
+    public long getLoggingNanos() {
+        return loggingNanos;
+    }
+
+    /**
+     * Get the wall-clock time of the whole generation.
+     * @return total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Get the number of evaluations per second of evaluation and local search time.
+     * @return evaluations per second
+     */
+    public double getEvaluationsPerSecond() {
+        long nanos = evaluationNanos + localSearchNanos;
+        return nanos == 0 ? 0 : evaluations * 1e9 / nanos;
+    }
+
+    /**
+     * Get the number of bytes allocated during the generation by the thread running the scheduler and its workers.
+     * @return allocated bytes, or -1 if allocation counting is not supported by the JVM
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get the number of schedules whose fitness was found in the fitness cache instead of being evaluated.
+     * @return cache hits, or 0 if the cache is disabled
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Get the number of schedules whose fitness was not found in the fitness cache and had to be evaluated.
+     * @return cache misses, or 0 if the cache is disabled
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+}
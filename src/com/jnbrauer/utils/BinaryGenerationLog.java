@@ -0,0 +1,210 @@
+package com.jnbrauer.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes a log of each generation's fitness statistics and best schedule in a compact binary format.
+ *
+ * The file starts with a header followed by one fixed-size record per generation, so any generation can be found
+ * without reading the ones before it. Use BinaryGenerationLogReader to read the file back or export it to CSV.
+ *
+ * Header (all values big-endian):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    number of tasks
+ * int    header size in bytes, i.e. the offset of the first record
+ * for each task: int length of the title in bytes, followed by the title in UTF-8
+ * </pre>
+ * Record:
+ * <pre>
+ * int    best fitness
+ * double average fitness
+ * int[]  start time of each task in the best schedule
+ * </pre>
+ *
+ * Records are collected in large buffers that a background thread writes to the file, so the caller does not wait on
+ * the disk unless every buffer is waiting to be written. All I/O happens on the background thread. Errors do not
+ * interrupt the caller: once writing fails, the remaining records are discarded and the error is reported by close().
+ *
+ * @author Jude Brauer
+ */
+public class BinaryGenerationLog implements AutoCloseable {
+    /**
+     * Identifies a generation log file.
+     */
+    public static final int MAGIC = 0x5347414C;
+    /**
+     * Version of the file format.
+     */
+    public static final int VERSION = 1;
+
+    // Size of each write buffer in bytes, and the number of buffers
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int N_BUFFERS = 4;
+
+    // Marks the end of the buffers to write
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final String filename;
+    private final String[] taskTitles;
+    private final int nTasks;
+
+    // Buffers waiting to be written, and empty buffers waiting to be filled
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(N_BUFFERS + 1);
+    private final BlockingQueue<ByteBuffer> empty = new ArrayBlockingQueue<>(N_BUFFERS);
+    private final Thread thread;
+
+    // Buffer records are appended to, only used by the caller
+    private ByteBuffer buffer;
+    private boolean closed = false;
+
+    // First error encountered by the background thread
+    private volatile IOException error = null;
+
+    /**
+     * Create a log file, replacing any existing file.
+     * @param filename name of the file to write to
+     * @param taskTitles title of each task
+     */
+    public BinaryGenerationLog(String filename, String[] taskTitles) {
+        this.filename = filename;
+        this.taskTitles = taskTitles.clone();
+        this.nTasks = taskTitles.length;
+
+        int bufferSize = Math.max(BUFFER_SIZE, recordSize(nTasks));
+        for (int i = 0; i < N_BUFFERS; i++) {
+            empty.add(ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.BIG_ENDIAN));
+        }
+        this.buffer = empty.poll();
+
+        this.thread = new Thread(this::writeBuffers, "binary-log-writer-" + filename);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Get the size in bytes of a record in a log with the given number of tasks.
+     * @param nTasks number of tasks
+     * @return record size in bytes
+     */
+    public static int recordSize(int nTasks) {
+        return Integer.BYTES + Double.BYTES + nTasks * Integer.BYTES;
+    }
+
+    /**
+     * Append the record of a generation.
+     * @param bestFitness fitness of the best schedule
+     * @param avgFitness average fitness
+     * @param genes array containing the best schedule
+     * @param offset offset of the best schedule in genes
+     */
+    public void append(int bestFitness, double avgFitness, int[] genes, int offset) {
+        if (closed) throw new IllegalStateException("Log is closed");
+        if (error != null) return;
+
+        try {
+            if (buffer.remaining() < recordSize(nTasks)) {
+                full.put(buffer);
+                buffer = empty.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        buffer.putInt(bestFitness);
+        buffer.putDouble(avgFitness);
+        for (int i = offset; i < offset + nTasks; i++) buffer.putInt(genes[i]);
+    }
+
+    /**
+     * Write all appended records and close the file.
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            full.put(buffer);
+            full.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing " + filename, e);
+        }
+
+        if (error != null) throw error;
+    }
+
+    // Background thread: write the header, then each full buffer until the end marker is reached
+    private void writeBuffers() {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel, taskTitles);
+
+            ByteBuffer written;
+            while ((written = full.take()) != END) {
+                written.flip();
+                while (written.hasRemaining()) channel.write(written);
+                written.clear();
+                empty.put(written);
+            }
+        } catch (IOException e) {
+            error = e;
+            drain();
+        } catch (InterruptedException e) {
+            error = new IOException("Interrupted while writing " + filename, e);
+            drain();
+        } catch (RuntimeException e) {
+            // The file name may be invalid; keep handing buffers back so that append() and close() still return
+            error = new IOException("Failed to write " + filename, e);
+            drain();
+        }
+    }
+
+    // Hand buffers straight back until the end marker is reached, so that the caller never waits forever
+    private void drain() {
+        try {
+            ByteBuffer discarded;
+            while ((discarded = full.take()) != END) {
+                discarded.clear();
+                empty.put(discarded);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeHeader(FileChannel channel, String[] taskTitles) throws IOException {
+        byte[][] titles = new byte[nTasks][];
+        int headerSize = 4 * Integer.BYTES;
+        for (int i = 0; i < nTasks; i++) {
+            titles[i] = taskTitles[i].getBytes(StandardCharsets.UTF_8);
+            headerSize += Integer.BYTES + titles[i].length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(nTasks);
+        header.putInt(headerSize);
+        for (byte[] title : titles) {
+            header.putInt(title.length);
+            header.put(title);
+        }
+
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+}
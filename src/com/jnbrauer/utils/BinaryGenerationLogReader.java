@@ -0,0 +1,165 @@
+package com.jnbrauer.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a generation log written by BinaryGenerationLog.
+ *
+ * The file is memory-mapped, so any generation can be read in constant time without loading the rest of the file. A
+ * partially written last record, for example from a crashed run, is ignored.
+ *
+ * @author Jude Brauer
+ */
+public class BinaryGenerationLogReader {
+    private final String[] taskTitles;
+    private final int nTasks;
+    private final int recordSize;
+    private final long nGenerations;
+
+    // The records are mapped in segments since a single mapping is limited to 2 GB
+    private final int recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Open a generation log.
+     * @param filename name of the log file
+     * @throws IOException if the file could not be read or is not a generation log
+     */
+    public BinaryGenerationLogReader(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            // Read header
+            ByteBuffer fixed = read(channel, 0, 4 * Integer.BYTES);
+            if (fixed.getInt() != BinaryGenerationLog.MAGIC) {
+                throw new IOException(filename + " is not a generation log");
+            }
+            int version = fixed.getInt();
+            if (version != BinaryGenerationLog.VERSION) throw new IOException("Unsupported log version " + version);
+            this.nTasks = fixed.getInt();
+            int headerSize = fixed.getInt();
+
+            ByteBuffer titles = read(channel, 4 * Integer.BYTES, headerSize - 4 * Integer.BYTES);
+            this.taskTitles = new String[nTasks];
+            for (int i = 0; i < nTasks; i++) {
+                byte[] title = new byte[titles.getInt()];
+                titles.get(title);
+                taskTitles[i] = new String(title, StandardCharsets.UTF_8);
+            }
+
+            // Map records
+            this.recordSize = BinaryGenerationLog.recordSize(nTasks);
+            this.nGenerations = (channel.size() - headerSize) / recordSize;
+            this.recordsPerSegment = Integer.MAX_VALUE / recordSize;
+
+            int nSegments = (int) ((nGenerations + recordsPerSegment - 1) / recordsPerSegment);
+            this.segments = new MappedByteBuffer[nSegments];
+            for (int s = 0; s < nSegments; s++) {
+                long first = (long) s * recordsPerSegment;
+                long count = Math.min(recordsPerSegment, nGenerations - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + first * recordSize,
+                        count * recordSize);
+                segments[s].order(ByteOrder.BIG_ENDIAN);
+            }
+        }
+    }
+
+    /**
+     * Get the number of generations in the log.
+     * @return number of generations
+     */
+    public long getGenerations() {
+        return nGenerations;
+    }
+
+    /**
+     * Get the titles of the tasks.
+     * @return task titles
+     */
+    public String[] getTaskTitles() {
+        return taskTitles.clone();
+    }
+
+    /**
+     * Get the best fitness of a generation.
+     * @param generation index of the generation
+     * @return best fitness
+     */
+    public int getBestFitness(long generation) {
+        return segment(generation).getInt(position(generation));
+    }
+
+    /**
+     * Get the average fitness of a generation.
+     * @param generation index of the generation
+     * @return average fitness
+     */
+    public double getAvgFitness(long generation) {
+        return segment(generation).getDouble(position(generation) + Integer.BYTES);
+    }
+
+    /**
+     * Get the best schedule of a generation.
+     * @param generation index of the generation
+     * @return start time of each task in the best schedule
+     */
+    public int[] getBestSchedule(long generation) {
+        MappedByteBuffer segment = segment(generation);
+        int position = position(generation) + Integer.BYTES + Double.BYTES;
+
+        int[] schedule = new int[nTasks];
+        for (int i = 0; i < nTasks; i++) schedule[i] = segment.getInt(position + i * Integer.BYTES);
+        return schedule;
+    }
+
+    /**
+     * Export the log to a CSV file in the same format Scheduler writes to output.csv.
+     * @param filename name of CSV file to write to.
+     * @throws IOException if the file could not be written
+     */
+    public void exportCSV(String filename) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+            writer.write("BestFitness,AvgFitness");
+            for (String title : taskTitles) writer.write("," + title);
+            writer.write('\n');
+
+            for (long g = 0; g < nGenerations; g++) {
+                writer.write(String.valueOf(getBestFitness(g)));
+                writer.write(',');
+                writer.write(String.valueOf(getAvgFitness(g)));
+                for (int start : getBestSchedule(g)) {
+                    writer.write(',');
+                    writer.write(String.valueOf(start));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    private MappedByteBuffer segment(long generation) {
+        if (generation < 0 || generation >= nGenerations) {
+            throw new IndexOutOfBoundsException("Generation " + generation + " out of range [0, " + nGenerations + ")");
+        }
+        return segments[(int) (generation / recordsPerSegment)];
+    }
+
+    private int position(long generation) {
+        return (int) (generation % recordsPerSegment) * recordSize;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
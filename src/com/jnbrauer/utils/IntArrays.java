@@ -0,0 +1,38 @@
+package com.jnbrauer.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk transfers of ints between arrays and byte buffers, used by the checkpoint, fitness cache and evaluation worker
+ * formats. Ints are written in the byte order of the buffer.
+ *
+ * @author Jude Brauer
+ */
+public final class IntArrays {
+    private IntArrays() {
+    }
+
+    /**
+     * Write ints to a buffer in bulk.
+     * @param buffer buffer to write to, advanced past the ints
+     * @param values array containing the ints
+     * @param offset index of the first int to write
+     * @param length number of ints to write
+     */
+    public static void putInts(ByteBuffer buffer, int[] values, int offset, int length) {
+        buffer.asIntBuffer().put(values, offset, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+    }
+
+    /**
+     * Read ints from a buffer in bulk.
+     * @param buffer buffer to read from, advanced past the ints
+     * @param values array to read the ints into
+     * @param offset index in values of the first int
+     * @param length number of ints to read
+     */
+    public static void getInts(ByteBuffer buffer, int[] values, int offset, int length) {
+        buffer.asIntBuffer().get(values, offset, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+    }
+}
@@ -0,0 +1,387 @@
+package com.jnbrauer.utils;
+
+import com.jnbrauer.data.ReservedTimeColumns;
+import com.jnbrauer.data.TaskColumns;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads tasks and reserved times from CSV or JSON files into TaskColumns and ReservedTimeColumns.
+ *
+ * Input is read as a stream, one record at a time, and each record is appended to the columns as soon as it has been
+ * parsed, so memory use is that of the columns and does not depend on the size of the file.
+ *
+ * CSV files start with a header naming the columns, in any order; other columns are ignored. Fields may be quoted,
+ * with "" standing for a quote inside a quoted field. JSON files hold an array of objects with the same keys; other
+ * keys are ignored. Tasks have the columns title, priority and duration, and reserved times have the columns title,
+ * startOffset, duration and period. For example:
+ * <pre>
+ * title,priority,duration
+ * "Report, part 1",3,180
+ *
+ * [{"title": "Sleep", "startOffset": -60, "duration": 480, "period": 1440}]
+ * </pre>
+ *
+ * @author Jude Brauer
+ */
+public class ProblemLoader {
+    private static final String[] TASK_COLUMNS = {"title", "priority", "duration"};
+    private static final String[] RESERVED_TIME_COLUMNS = {"title", "startOffset", "duration", "period"};
+
+    /**
+     * Read tasks from a file. Files with names ending in ".json" or ".json.gz" are read as JSON and all others as CSV.
+     * Files with names ending in ".gz" are decompressed with gzip.
+     * @param filename name of the file
+     * @return tasks in the order they appear in the file
+     * @throws IOException if the file could not be read or is malformed
+     */
+    public static TaskColumns readTasks(String filename) throws IOException {
+        try (Reader reader = open(filename)) {
+            return isJSON(filename) ? readTasksJSON(reader) : readTasksCSV(reader);
+        }
+    }
+
+    /**
+     * Read reserved times from a file. Files with names ending in ".json" or ".json.gz" are read as JSON and all others
+     * as CSV. Files with names ending in ".gz" are decompressed with gzip.
+     * @param filename name of the file
+     * @return reserved times in the order they appear in the file
+     * @throws IOException if the file could not be read or is malformed
+     */
+    public static ReservedTimeColumns readReservedTimes(String filename) throws IOException {
+        try (Reader reader = open(filename)) {
+            return isJSON(filename) ? readReservedTimesJSON(reader) : readReservedTimesCSV(reader);
+        }
+    }
+
+    /**
+     * Read tasks in CSV format.
+     * @param reader reader to read from
+     * @return tasks
+     * @throws IOException if the input could not be read or is malformed
+     */
+    public static TaskColumns readTasksCSV(Reader reader) throws IOException {
+        TaskColumns tasks = new TaskColumns();
+        readCSV(reader, TASK_COLUMNS, (values, record) -> addTask(tasks, values, record));
+        return tasks;
+    }
+
+    /**
+     * Read tasks in JSON format.
+     * @param reader reader to read from
+     * @return tasks
+     * @throws IOException if the input could not be read or is malformed
+     */
+    public static TaskColumns readTasksJSON(Reader reader) throws IOException {
+        TaskColumns tasks = new TaskColumns();
+        readJSON(reader, TASK_COLUMNS, (values, record) -> addTask(tasks, values, record));
+        return tasks;
+    }
+
+    /**
+     * Read reserved times in CSV format.
+     * @param reader reader to read from
+     * @return reserved times
+     * @throws IOException if the input could not be read or is malformed
+     */
+    public static ReservedTimeColumns readReservedTimesCSV(Reader reader) throws IOException {
+        ReservedTimeColumns reservedTimes = new ReservedTimeColumns();
+        readCSV(reader, RESERVED_TIME_COLUMNS, (values, record) -> addReservedTime(reservedTimes, values, record));
+        return reservedTimes;
+    }
+
+    /**
+     * Read reserved times in JSON format.
+     * @param reader reader to read from
+     * @return reserved times
+     * @throws IOException if the input could not be read or is malformed
+     */
+    public static ReservedTimeColumns readReservedTimesJSON(Reader reader) throws IOException {
+        ReservedTimeColumns reservedTimes = new ReservedTimeColumns();
+        readJSON(reader, RESERVED_TIME_COLUMNS, (values, record) -> addReservedTime(reservedTimes, values, record));
+        return reservedTimes;
+    }
+
+    private static void addTask(TaskColumns tasks, String[] values, int record) throws IOException {
+        int duration = parseInt(values[2], "duration", record);
+        if (duration < 0) throw new IOException("Record " + record + ": duration must not be negative");
+        tasks.add(values[0], parseInt(values[1], "priority", record), duration);
+    }
+
+    private static void addReservedTime(ReservedTimeColumns reservedTimes, String[] values, int record)
+            throws IOException {
+        int period = parseInt(values[3], "period", record);
+        if (period < 1) throw new IOException("Record " + record + ": period must be at least 1");
+        reservedTimes.add(values[0], parseInt(values[1], "startOffset", record),
+                parseInt(values[2], "duration", record), period);
+    }
+
+    private static int parseInt(String value, String column, int record) throws IOException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Record " + record + ": " + column + " is not an integer: " + value, e);
+        }
+    }
+
+    private static Reader open(String filename) throws IOException {
+        InputStream in = Files.newInputStream(Paths.get(filename));
+        if (filename.endsWith(".gz")) in = new GZIPInputStream(in);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static boolean isJSON(String filename) {
+        return filename.endsWith(".json") || filename.endsWith(".json.gz");
+    }
+
+    /**
+     * Receives the values of each record, in the order of the requested columns.
+     */
+    private interface RecordHandler {
+        void accept(String[] values, int record) throws IOException;
+    }
+
+    // CSV /////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    // Read CSV records and hand the values of the given columns to the handler. The values array is reused.
+    private static void readCSV(Reader reader, String[] columns, RecordHandler handler) throws IOException {
+        CharInput in = new CharInput(reader);
+        StringBuilder field = new StringBuilder();
+
+        // Find the position of each requested column in the header
+        String[] header = readCSVLine(in, field, null);
+        if (header == null) throw new IOException("Missing CSV header");
+        int[] positions = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            positions[c] = Arrays.asList(header).indexOf(columns[c]);
+            if (positions[c] < 0) throw new IOException("Missing column " + columns[c]);
+        }
+
+        String[] fields = new String[header.length];
+        String[] values = new String[columns.length];
+        int record = 0;
+        while (readCSVLine(in, field, fields) != null) {
+            record++;
+            for (int c = 0; c < columns.length; c++) values[c] = fields[positions[c]];
+            handler.accept(values, record);
+        }
+    }
+
+    // Read the fields of the next non-empty line into fields, or into a new array if fields is null. Returns null at
+    // the end of the input.
+    private static String[] readCSVLine(CharInput in, StringBuilder field, String[] fields) throws IOException {
+        // Skip empty lines
+        while (in.peek() == '\r' || in.peek() == '\n') in.read();
+        if (in.peek() < 0) return null;
+
+        int line = in.line;
+        String[] result = fields;
+        int n = 0;
+        while (true) {
+            field.setLength(0);
+            if (in.peek() == '"') {
+                in.read();
+                while (true) {
+                    int c = in.read();
+                    if (c < 0) throw new IOException("Line " + line + ": unterminated quoted field");
+                    if (c == '"') {
+                        if (in.peek() != '"') break;
+                        in.read();
+                    }
+                    field.append((char) c);
+                }
+            }
+            while (in.peek() >= 0 && in.peek() != ',' && in.peek() != '\r' && in.peek() != '\n') {
+                field.append((char) in.read());
+            }
+
+            if (result == null) result = new String[4];
+            else if (n == result.length && fields == null) result = Arrays.copyOf(result, 2 * n);
+            else if (n == result.length) throw new IOException("Line " + line + ": expected " + n + " fields");
+            result[n++] = field.toString();
+
+            if (in.peek() != ',') break;
+            in.read();
+        }
+
+        if (fields == null) return Arrays.copyOf(result, n);
+        if (n != fields.length) throw new IOException("Line " + line + ": expected " + fields.length + " fields");
+        return result;
+    }
+
+    // JSON ////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    // Read an array of JSON objects and hand the values of the given keys to the handler. The values array is reused.
+    private static void readJSON(Reader reader, String[] columns, RecordHandler handler) throws IOException {
+        CharInput in = new CharInput(reader);
+        StringBuilder text = new StringBuilder();
+        String[] values = new String[columns.length];
+
+        expect(in, '[');
+        int record = 0;
+        if (skipWhitespace(in) == ']') {
+            in.read();
+        } else {
+            while (true) {
+                record++;
+                Arrays.fill(values, null);
+
+                expect(in, '{');
+                if (skipWhitespace(in) == '}') {
+                    in.read();
+                } else {
+                    while (true) {
+                        expect(in, '"');
+                        String key = readString(in, text);
+                        expect(in, ':');
+
+                        int c = Arrays.asList(columns).indexOf(key);
+                        if (c < 0) skipValue(in, text);
+                        else values[c] = readScalar(in, text);
+
+                        if (next(in, ',', '}') == '}') break;
+                    }
+                }
+
+                for (int c = 0; c < columns.length; c++) {
+                    if (values[c] == null) throw new IOException("Record " + record + ": missing " + columns[c]);
+                }
+                handler.accept(values, record);
+
+                if (next(in, ',', ']') == ']') break;
+            }
+        }
+
+        if (skipWhitespace(in) >= 0) throw new IOException("Line " + in.line + ": unexpected data after array");
+    }
+
+    // Read a string or a number, true, false or null as text
+    private static String readScalar(CharInput in, StringBuilder text) throws IOException {
+        int c = skipWhitespace(in);
+        if (c == '"') {
+            in.read();
+            return readString(in, text);
+        }
+        if (c == '{' || c == '[') throw new IOException("Line " + in.line + ": expected a string or number");
+
+        text.setLength(0);
+        while (in.peek() >= 0 && "-+.0123456789eEtrufalsn".indexOf(in.peek()) >= 0) text.append((char) in.read());
+        if (text.length() == 0) throw new IOException("Line " + in.line + ": expected a value");
+        return text.toString();
+    }
+
+    // Skip a value of any type, including nested objects and arrays
+    private static void skipValue(CharInput in, StringBuilder text) throws IOException {
+        int c = skipWhitespace(in);
+        if (c != '{' && c != '[') {
+            readScalar(in, text);
+            return;
+        }
+
+        int depth = 0;
+        do {
+            c = in.read();
+            if (c < 0) throw new IOException("Line " + in.line + ": unexpected end of input");
+            if (c == '"') readString(in, text);
+            else if (c == '{' || c == '[') depth++;
+            else if (c == '}' || c == ']') depth--;
+        } while (depth > 0);
+    }
+
+    // Read the rest of a string after its opening quote
+    private static String readString(CharInput in, StringBuilder text) throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = in.read();
+            if (c < 0) throw new IOException("Line " + in.line + ": unterminated string");
+            if (c == '"') return text.toString();
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+
+            c = in.read();
+            switch (c) {
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'n': text.append('\n'); break;
+                case 'r': text.append('\r'); break;
+                case 't': text.append('\t'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(in.read(), 16);
+                        if (digit < 0) throw new IOException("Line " + in.line + ": invalid unicode escape");
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                    break;
+                case '"': case '\\': case '/': text.append((char) c); break;
+                default: throw new IOException("Line " + in.line + ": invalid escape");
+            }
+        }
+    }
+
+    // Read the next character after whitespace and check that it is one of two characters
+    private static int next(CharInput in, char a, char b) throws IOException {
+        int c = skipWhitespace(in);
+        if (c != a && c != b) throw new IOException("Line " + in.line + ": expected '" + a + "' or '" + b + "'");
+        return in.read();
+    }
+
+    private static void expect(CharInput in, char expected) throws IOException {
+        if (skipWhitespace(in) != expected) throw new IOException("Line " + in.line + ": expected '" + expected + "'");
+        in.read();
+    }
+
+    // Skip whitespace and return the next character without reading it
+    private static int skipWhitespace(CharInput in) throws IOException {
+        while (in.peek() >= 0 && Character.isWhitespace(in.peek())) in.read();
+        return in.peek();
+    }
+
+    /**
+     * Reads characters one at a time with one character of lookahead and counts lines for error messages.
+     */
+    private static class CharInput {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+        private int line = 1;
+
+        CharInput(Reader reader) {
+            this.reader = reader;
+        }
+
+        int peek() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+                if (c == '\n') line++;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jnbrauer.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helper class for writing CSV logs while they are being generated.
+ *
+ * Lines are handed to a background thread through a bounded queue and written to the file as they arrive, so memory
+ * use does not grow with the number of lines and the caller does not wait on the disk. Buffered output is flushed to
+ * the file at a fixed interval. If the background thread falls so far behind that the queue is full, the caller waits
+ * for room instead of losing lines. Lines are only dropped, and counted, once writing has failed.
+ *
+ * All I/O happens on the background thread. Errors are reported by close().
+ *
+ * @author Jude Brauer
+ */
+public class StreamingCSVWriter implements AutoCloseable {
+    // Default number of lines that can wait to be written
+    private static final int DEFAULT_CAPACITY = 1024;
+    // Default time between flushes in milliseconds
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    // Marks the end of the lines in the queue
+    private static final String[] END = new String[0];
+
+    private final String filename;
+    private final boolean gzip;
+    private final long flushInterval;
+
+    private final BlockingQueue<String[]> queue;
+    private final Thread thread;
+    private final AtomicLong droppedLines = new AtomicLong();
+
+    private volatile boolean closed = false;
+    // First error encountered by the background thread
+    private volatile IOException error = null;
+
+    /**
+     * Initialize the writer with the default queue capacity and flush interval. The file is compressed with gzip if
+     * its name ends in ".gz".
+     * @param filename name of CSV file to write to.
+     */
+    public StreamingCSVWriter(String filename) {
+        this(filename, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL, filename.endsWith(".gz"));
+    }
+
+    /**
+     * Initialize the writer.
+     * @param filename name of CSV file to write to.
+     * @param capacity number of lines that can wait to be written before adding a line blocks
+     * @param flushInterval time between flushes in milliseconds
+     * @param gzip true to compress the file with gzip
+     */
+    public StreamingCSVWriter(String filename, int capacity, long flushInterval, boolean gzip) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (flushInterval < 1) throw new IllegalArgumentException("flushInterval must be at least 1");
+
+        this.filename = filename;
+        this.gzip = gzip;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.thread = new Thread(this::writeLines, "csv-writer-" + filename);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Add a line to the CSV file. Blocks while the queue is full, which only happens when the disk can not keep up.
+     * @param line line to add.
+     * @return true if the line was queued, false if it was dropped because writing has failed or the caller was
+     *         interrupted
+     */
+    public boolean addLine(String[] line) {
+        if (closed) throw new IllegalStateException("Writer is closed");
+
+        if (error == null) {
+            try {
+                // After an error the background thread keeps taking lines, so this never waits forever
+                queue.put(line);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        droppedLines.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Get the number of lines that have been dropped.
+     * @return number of dropped lines
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * Write all queued lines, close the file and stop the background thread.
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing " + filename, e);
+        }
+
+        if (error != null) throw error;
+    }
+
+    // Background thread: write lines as they arrive and flush at a fixed interval until the end marker is reached
+    private void writeLines() {
+        try (Writer writer = openWriter()) {
+            long nextFlush = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+            while (true) {
+                String[] line = queue.poll(Math.max(0, nextFlush - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                if (line == END) break;
+                if (line != null) {
+                    writer.write(lineToString(line));
+                    writer.write('\n');
+                }
+
+                if (System.nanoTime() - nextFlush >= 0) {
+                    writer.flush();
+                    nextFlush = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+            // Keep taking lines so that close() does not wait forever on a full queue
+            drain();
+        } catch (InterruptedException e) {
+            error = new IOException("Interrupted while writing " + filename, e);
+            drain();
+        } catch (RuntimeException e) {
+            // An invalid file name or a bad line must not leave close() waiting on a queue nobody takes from
+            error = new IOException("Failed to write " + filename, e);
+            drain();
+        }
+    }
+
+    // Discard queued lines until the end marker is reached
+    private void drain() {
+        try {
+            while (queue.take() != END) {
+                droppedLines.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Writer openWriter() throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        if (gzip) out = new GZIPOutputStream(out, 8192, true);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private String lineToString(String[] line) {
+        return String.join(",", line);
+    }
+}
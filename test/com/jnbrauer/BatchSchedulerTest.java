@@ -0,0 +1,94 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the problems of a BatchScheduler write their logs and checkpoints to their own files.
+ *
+ * @author Jude Brauer
+ */
+class BatchSchedulerTest {
+    private static final int MAX_TIME = 7200;
+    private static final int GENERATIONS = 20;
+    private static final int N_PROBLEMS = 4;
+
+    private static final ReservedTime[] RESERVED_TIMES = {
+            new ReservedTime("Sleep", -60, 480, 24 * 60)
+    };
+
+    @TempDir
+    Path directory;
+
+    // Create problems with different tasks
+    private static List<SchedulingProblem> problems() {
+        Random random = new Random(1);
+        List<SchedulingProblem> problems = new ArrayList<>();
+        for (int p = 0; p < N_PROBLEMS; p++) {
+            Task[] tasks = new Task[20 + 10 * p];
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = new Task("Task " + i, random.nextInt(8), 30 + random.nextInt(300));
+            }
+            problems.add(new SchedulingProblem(MAX_TIME, tasks, RESERVED_TIMES));
+        }
+        return problems;
+    }
+
+    @Test
+    void problemsWriteTheirOwnFiles() throws IOException {
+        String log = directory.resolve("output.csv").toString();
+        String binaryLog = directory.resolve("output.bin").toString();
+        String checkpoint = directory.resolve("checkpoint").toString();
+
+        try (BatchScheduler batch = new BatchScheduler(GENERATIONS, 2, 12, 16)) {
+            batch.setConfiguration(scheduler -> {
+                scheduler.setLogFile(log);
+                scheduler.setBinaryLogFile(binaryLog);
+                scheduler.setCheckpoint(checkpoint, 5);
+            });
+            List<AnytimeRun> runs = batch.solveAll(problems());
+            assertEquals(N_PROBLEMS, runs.size());
+        }
+
+        for (int p = 0; p < N_PROBLEMS; p++) {
+            // A header and one line per generation, so no other problem wrote to the log
+            List<String> lines = Files.readAllLines(directory.resolve("output-" + p + ".csv"));
+            assertEquals(GENERATIONS + 1, lines.size(), "log of problem " + p);
+            assertTrue(Files.exists(directory.resolve("output-" + p + ".bin")), "binary log of problem " + p);
+            assertTrue(Files.exists(directory.resolve("checkpoint-" + p)), "checkpoint of problem " + p);
+        }
+        assertTrue(Files.notExists(directory.resolve("output.csv")));
+    }
+
+    @Test
+    void filesDoNotChangeTheRuns() {
+        List<AnytimeRun> expected;
+        try (BatchScheduler batch = new BatchScheduler(GENERATIONS, 2, 12, 16)) {
+            expected = batch.solveAll(problems());
+        }
+
+        List<AnytimeRun> actual;
+        try (BatchScheduler batch = new BatchScheduler(GENERATIONS, 2, 12, 16)) {
+            batch.setConfiguration(scheduler -> scheduler.setLogFile(directory.resolve("run.log.csv").toString()));
+            actual = batch.solveAll(problems());
+        }
+
+        for (int p = 0; p < N_PROBLEMS; p++) {
+            assertArrayEquals(expected.get(p).getBestSchedule(), actual.get(p).getBestSchedule());
+            assertTrue(Files.exists(directory.resolve("run-" + p + ".log.csv")));
+        }
+    }
+}
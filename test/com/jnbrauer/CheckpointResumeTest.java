@@ -0,0 +1,113 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a run resumed from a checkpoint ends exactly the same way as a run that was never interrupted.
+ *
+ * @author Jude Brauer
+ */
+class CheckpointResumeTest {
+    private static final int MAX_TIME = 7200;
+    private static final long SEED = 42;
+    private static final int GENERATIONS = 60;
+    // Generations between checkpoints; the interrupted run stops just after the first one
+    private static final int INTERVAL = 25;
+
+    private static final ReservedTime[] RESERVED_TIMES = {
+            new ReservedTime("Sleep", -60, 480, 24 * 60),
+            new ReservedTime("Class", 630, 75, 24 * 60)
+    };
+
+    @TempDir
+    Path directory;
+
+    // Create a scheduler with the same tasks and settings every time
+    private static Scheduler scheduler(int nThreads, boolean allFeatures) {
+        Random random = new Random(1);
+        Task[] tasks = new Task[80];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, random.nextInt(8), 30 + random.nextInt(300));
+        }
+
+        Scheduler scheduler = new Scheduler(MAX_TIME, tasks, RESERVED_TIMES, SEED, nThreads);
+        scheduler.setLogFile(null);
+        if (allFeatures) {
+            // Everything that is saved in the checkpoint besides the generation and random streams
+            scheduler.setFitnessCache(1024, DuplicatePolicy.REMUTATE);
+            scheduler.setReplacement(ReplacementStrategy.ELITIST, 10);
+            scheduler.setLocalSearch(3, 50);
+            scheduler.setConstraintAwareMutation(true);
+        }
+        return scheduler;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, false", "4, false", "1, true", "4, true"})
+    void resumedRunMatchesUninterruptedRun(int nThreads, boolean allFeatures) throws IOException {
+        Path uninterruptedCheckpoint = directory.resolve("uninterrupted.bin");
+        Path resumedCheckpoint = directory.resolve("resumed.bin");
+
+        Scheduler uninterrupted = scheduler(nThreads, allFeatures);
+        uninterrupted.setCheckpoint(uninterruptedCheckpoint.toString(), INTERVAL);
+        ScheduleResult expected = uninterrupted.run(GENERATIONS);
+
+        // Stop after the checkpoint at INTERVAL generations; checkpoints are only saved while the run goes on
+        Scheduler interrupted = scheduler(nThreads, allFeatures);
+        interrupted.setCheckpoint(resumedCheckpoint.toString(), INTERVAL);
+        interrupted.run(INTERVAL + 1);
+
+        Scheduler resumed = scheduler(nThreads, allFeatures);
+        resumed.setCheckpoint(resumedCheckpoint.toString(), INTERVAL);
+        ScheduleResult actual = resumed.resume(resumedCheckpoint.toString(), GENERATIONS);
+
+        assertEquals(expected.getGenerations(), actual.getGenerations());
+        assertEquals(expected.getTerminationReason(), actual.getTerminationReason());
+        assertArrayEquals(expected.getSchedules(), actual.getSchedules());
+        assertArrayEquals(expected.getFitnesses(), actual.getFitnesses());
+
+        assertArrayEquals(expected.getBestSchedule(), actual.getBestSchedule());
+        assertEquals(expected.getBestFitness(), actual.getBestFitness());
+        assertEquals(expected.getBestGeneration(), actual.getBestGeneration());
+        assertEquals(expected.getBestBreakdown().getTaskOverlap(), actual.getBestBreakdown().getTaskOverlap());
+        assertEquals(expected.getBestBreakdown().getPriorityInversions(),
+                actual.getBestBreakdown().getPriorityInversions());
+        assertEquals(expected.getBestBreakdown().getReservedOverlap(), actual.getBestBreakdown().getReservedOverlap());
+
+        // Both runs saved their last checkpoint at the same generation after the resume, so the random streams, the
+        // generation, the best schedule and the cache must all be byte for byte the same
+        ByteBuffer expectedState = CheckpointFile.read(uninterruptedCheckpoint);
+        ByteBuffer actualState = CheckpointFile.read(resumedCheckpoint);
+        assertEquals(expectedState, actualState, "state saved in the last checkpoint");
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1", "4"})
+    void checkpointsDoNotChangeTheRun(int nThreads) {
+        Scheduler plain = scheduler(nThreads, true);
+        Scheduler checkpointed = scheduler(nThreads, true);
+        checkpointed.setCheckpoint(directory.resolve("checkpoint.bin").toString(), 7);
+
+        ScheduleResult expected = plain.run(GENERATIONS);
+        ScheduleResult actual = checkpointed.run(GENERATIONS);
+
+        assertArrayEquals(expected.getSchedules(), actual.getSchedules());
+        assertArrayEquals(expected.getBestSchedule(), actual.getBestSchedule());
+        assertEquals(expected.getBestGeneration(), actual.getBestGeneration());
+        assertTrue(Files.exists(directory.resolve("checkpoint.bin")));
+    }
+}
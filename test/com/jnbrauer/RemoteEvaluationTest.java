@@ -0,0 +1,261 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+import com.jnbrauer.fitness.EvaluationWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that runs evaluated on EvaluationWorkers over loopback sockets give exactly the same results as runs
+ * evaluated locally, including when workers die or hang in the middle of a run.
+ *
+ * @author Jude Brauer
+ */
+@Timeout(120)
+class RemoteEvaluationTest {
+    private static final int MAX_TIME = 7200;
+    private static final long SEED = 42;
+    private static final int GENERATIONS = 30;
+    // Does not divide the generation size, so the last batch of each generation is smaller
+    private static final int BATCH_SIZE = 7;
+    // Short enough to keep the test fast, long enough for a loaded machine to answer a batch
+    private static final long TIMEOUT = 2000;
+
+    private static final ReservedTime[] RESERVED_TIMES = {
+            new ReservedTime("Sleep", -60, 480, 24 * 60),
+            new ReservedTime("Class", 630, 75, 24 * 60)
+    };
+
+    @TempDir
+    Path directory;
+
+    private EvaluationWorker tcpWorker;
+    private EvaluationWorker unixWorker;
+    private final List<Proxy> proxies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startWorkers() throws IOException {
+        tcpWorker = new EvaluationWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        tcpWorker.start();
+        unixWorker = new EvaluationWorker(UnixDomainSocketAddress.of(directory.resolve("worker.sock")));
+        unixWorker.start();
+    }
+
+    @AfterEach
+    void stopWorkers() {
+        for (Proxy proxy : proxies) proxy.close();
+        tcpWorker.close();
+        unixWorker.close();
+    }
+
+    // Create a scheduler with the same tasks and settings every time
+    private static Scheduler scheduler(int nThreads) {
+        Random random = new Random(1);
+        Task[] tasks = new Task[100];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, random.nextInt(8), 30 + random.nextInt(300));
+        }
+
+        Scheduler scheduler = new Scheduler(MAX_TIME, tasks, RESERVED_TIMES, SEED, nThreads);
+        scheduler.setLogFile(null);
+        // Schedules found in the cache are not sent to the workers
+        scheduler.setFitnessCache(512, DuplicatePolicy.REMUTATE);
+        return scheduler;
+    }
+
+    // Run with the given workers and check the result against a local run
+    private static void assertSameAsLocal(int nThreads, Scheduler remote) {
+        ScheduleResult expected = scheduler(nThreads).run(GENERATIONS);
+        ScheduleResult actual = remote.run(GENERATIONS);
+
+        assertArrayEquals(expected.getSchedules(), actual.getSchedules());
+        assertArrayEquals(expected.getFitnesses(), actual.getFitnesses());
+        assertArrayEquals(expected.getBestSchedule(), actual.getBestSchedule());
+        assertEquals(expected.getBestFitness(), actual.getBestFitness());
+        assertEquals(expected.getBestGeneration(), actual.getBestGeneration());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void remoteMatchesLocal(int nThreads) {
+        // Two connections to each worker, and one address nothing listens on, which is left out
+        Scheduler remote = scheduler(nThreads);
+        remote.setRemoteWorkers(List.of(tcpWorker.getAddress(), tcpWorker.getAddress(), unixWorker.getAddress(),
+                unixWorker.getAddress(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 1)), BATCH_SIZE);
+
+        assertSameAsLocal(nThreads, remote);
+    }
+
+    @Test
+    void workerKilledMidRunIsReplaced() throws IOException {
+        // A few generations in, the connection is cut in the middle of a result message while batches are queued at
+        // the worker
+        Proxy dying = proxy(100_000);
+        Scheduler remote = scheduler(1);
+        remote.setRemoteWorkers(List.of(dying.getAddress(), tcpWorker.getAddress()), BATCH_SIZE, TIMEOUT);
+
+        assertSameAsLocal(1, remote);
+        assertTrue(dying.killed, "the worker was not killed during the run");
+    }
+
+    @Test
+    void allWorkersKilledMidRunFallBackToLocal() throws IOException {
+        Proxy first = proxy(100_000);
+        Proxy second = proxy(150_000);
+        Scheduler remote = scheduler(1);
+        remote.setRemoteWorkers(List.of(first.getAddress(), second.getAddress()), BATCH_SIZE, TIMEOUT);
+
+        assertSameAsLocal(1, remote);
+        assertTrue(first.killed && second.killed, "the workers were not killed during the run");
+    }
+
+    @Test
+    void hungWorkerIsDropped() throws IOException {
+        // The worker stays connected but stops answering after a few generations
+        Proxy hung = proxy(Long.MAX_VALUE);
+        Scheduler remote = scheduler(1);
+        remote.setRemoteWorkers(List.of(hung.getAddress(), tcpWorker.getAddress()), BATCH_SIZE, TIMEOUT);
+        remote.addGenerationListener(metrics -> {
+            if (metrics.getGeneration() == 10) hung.frozen = true;
+        });
+
+        assertSameAsLocal(1, remote);
+    }
+
+    @Test
+    void allWorkersHungFallBackToLocal() throws IOException {
+        Proxy hung = proxy(Long.MAX_VALUE);
+        hung.frozen = true;
+        Scheduler remote = scheduler(1);
+        remote.setRemoteWorkers(List.of(hung.getAddress()), BATCH_SIZE, TIMEOUT);
+
+        assertSameAsLocal(1, remote);
+    }
+
+    // Start a proxy in front of the TCP worker
+    private Proxy proxy(long resultBytes) throws IOException {
+        Proxy proxy = new Proxy(tcpWorker.getAddress(), resultBytes);
+        proxies.add(proxy);
+        return proxy;
+    }
+
+    /**
+     * Forwards connections to a worker. It can kill them once a number of result bytes have been forwarded, or stop
+     * forwarding results while keeping them open.
+     */
+    private static final class Proxy implements AutoCloseable {
+        private final ServerSocket server;
+        private final SocketAddress worker;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        // Result bytes still to forward before every connection is killed
+        private final AtomicLong resultBytes;
+
+        volatile boolean frozen = false;
+        volatile boolean killed = false;
+
+        Proxy(SocketAddress worker, long resultBytes) throws IOException {
+            this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.worker = worker;
+            this.resultBytes = new AtomicLong(resultBytes);
+            daemon(this::accept);
+        }
+
+        SocketAddress getAddress() {
+            return server.getLocalSocketAddress();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    Socket master = server.accept();
+                    Socket target = new Socket();
+                    target.connect(worker);
+                    sockets.add(master);
+                    sockets.add(target);
+                    daemon(() -> forward(master, target, false));
+                    daemon(() -> forward(target, master, true));
+                }
+            } catch (IOException e) {
+                // Closed by close()
+            }
+        }
+
+        // Copy bytes from one socket to the other until either is closed
+        private void forward(Socket from, Socket to, boolean results) {
+            byte[] buffer = new byte[4096];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    if (results && frozen) continue;
+
+                    long left = results ? resultBytes.getAndAdd(-n) : Long.MAX_VALUE;
+                    if (left <= n) {
+                        // Forward part of the message and cut the connection
+                        out.write(buffer, 0, (int) Math.max(0, left));
+                        out.flush();
+                        kill();
+                        return;
+                    }
+                    out.write(buffer, 0, n);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // One side closed the connection
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }
+
+        // Close every forwarded connection
+        private void kill() {
+            killed = true;
+            for (Socket socket : sockets) closeQuietly(socket);
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(server);
+            for (Socket socket : sockets) closeQuietly(socket);
+        }
+
+        private static void daemon(Runnable work) {
+            Thread thread = new Thread(work, "proxy");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private static void closeQuietly(AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.jnbrauer;
+
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import com.jnbrauer.data.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that adding and removing reserved times on a live Scheduler gives the same fitnesses as a Scheduler built
+ * with the final reserved times.
+ *
+ * @author Jude Brauer
+ */
+class ReservedTimeUpdateTest {
+    private static final int MAX_TIME = 7200;
+    private static final long SEED = 42;
+    private static final int GENERATIONS = 30;
+
+    private static final ReservedTime[] RESERVED_TIMES = {
+            new ReservedTime("Sleep", -60, 480, 24 * 60),
+            new ReservedTime("Class", 630, 75, 24 * 60)
+    };
+
+    // Create the same tasks every time
+    private static Task[] tasks() {
+        Random random = new Random(1);
+        Task[] tasks = new Task[60];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, random.nextInt(8), 30 + random.nextInt(300));
+        }
+        return tasks;
+    }
+
+    // Create a scheduler with the given reserved times and overlap index
+    private static Scheduler scheduler(ReservedTime[] reservedTimes, OverlapIndexType indexType) {
+        Scheduler scheduler = new Scheduler(MAX_TIME, tasks(), reservedTimes, SEED, 1);
+        scheduler.setLogFile(null);
+        scheduler.setOverlapIndexType(indexType);
+        return scheduler;
+    }
+
+    // Create a random reserved time
+    private static ReservedTime randomReservedTime(Random random, int i) {
+        int period = 60 + random.nextInt(24 * 60);
+        return new ReservedTime("Reserved " + i, random.nextInt(period) - 60, random.nextInt(period), period);
+    }
+
+    // Check the fitness of random schedules against a scheduler built with the reserved times
+    private static void assertSameFitness(Scheduler live, List<ReservedTime> reservedTimes, Random random) {
+        Scheduler rebuilt = scheduler(reservedTimes.toArray(new ReservedTime[0]), OverlapIndexType.INTERVAL_TREE);
+        int[] schedule = new int[tasks().length];
+        for (int trial = 0; trial < 10; trial++) {
+            for (int i = 0; i < schedule.length; i++) schedule[i] = random.nextInt(MAX_TIME);
+            assertEquals(rebuilt.fitness(schedule), live.fitness(schedule));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverlapIndexType.class)
+    void randomAddsAndRemoves(OverlapIndexType indexType) {
+        Random random = new Random(11);
+        List<ReservedTime> reservedTimes = new ArrayList<>(List.of(RESERVED_TIMES));
+        Scheduler live = scheduler(RESERVED_TIMES, indexType);
+
+        for (int op = 0; op < 60; op++) {
+            if (reservedTimes.isEmpty() || random.nextBoolean()) {
+                ReservedTime reservedTime = randomReservedTime(random, op);
+                live.addReservedTime(reservedTime);
+                reservedTimes.add(reservedTime);
+            } else {
+                ReservedTime reservedTime = reservedTimes.remove(random.nextInt(reservedTimes.size()));
+                assertTrue(live.removeReservedTime(reservedTime));
+            }
+            assertSameFitness(live, reservedTimes, random);
+        }
+
+        assertFalse(live.removeReservedTime(new ReservedTime("Missing", 0, 60, 24 * 60)));
+    }
+
+    @Test
+    void updatesDuringRun() {
+        // Reserved times change from a listener while the run goes on; the final generation must be evaluated with
+        // the reserved times the run ended with
+        ReservedTime added = new ReservedTime("Meeting", 200, 90, 24 * 60);
+        Scheduler live = scheduler(RESERVED_TIMES, OverlapIndexType.MUTABLE_INTERVAL_TREE);
+        live.addGenerationListener(metrics -> {
+            if (metrics.getGeneration() == 10) live.addReservedTime(added);
+            if (metrics.getGeneration() == 20) live.removeReservedTime(RESERVED_TIMES[1]);
+        });
+        ScheduleResult result = live.run(GENERATIONS);
+
+        Scheduler rebuilt = scheduler(new ReservedTime[] {RESERVED_TIMES[0], added}, OverlapIndexType.INTERVAL_TREE);
+        int[][] schedules = result.getSchedules();
+        int[] fitnesses = result.getFitnesses();
+        for (int i = 0; i < schedules.length; i++) {
+            assertEquals(rebuilt.fitness(schedules[i]), fitnesses[i], "schedule " + i);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jnbrauer.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks MutableIntervalTree against a plain list of intervals through random sequences of additions and removals.
+ *
+ * @author Jude Brauer
+ */
+class MutableIntervalTreeTest {
+    private static final int MAX_TIME = 2000;
+    private static final Comparator<Interval> ORDER =
+            Comparator.comparingInt(Interval::getStart).thenComparingInt(Interval::getEnd);
+
+    // Sum the overlap with every interval in the list
+    private static int bruteForceOverlap(List<Interval> intervals, int start, int end) {
+        int overlap = 0;
+        for (Interval interval : intervals) {
+            overlap += Interval.overlap(start, end, interval.getStart(), interval.getEnd());
+        }
+        return overlap;
+    }
+
+    // Remove the first interval in the list with the same times and description
+    private static boolean bruteForceRemove(List<Interval> intervals, Interval removed) {
+        for (int i = 0; i < intervals.size(); i++) {
+            Interval interval = intervals.get(i);
+            if (interval.getStart() == removed.getStart() && interval.getEnd() == removed.getEnd()
+                    && Objects.equals(interval.getDescription(), removed.getDescription())) {
+                intervals.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Check the structure of the tree and its contents against the list
+    private static void assertSameAs(List<Interval> expected, MutableIntervalTree tree, Random random) {
+        tree.checkInvariants();
+        assertEquals(expected.size(), tree.getSize());
+
+        Interval[] intervals = tree.getIntervals();
+        for (int i = 1; i < intervals.length; i++) {
+            assertTrue(ORDER.compare(intervals[i - 1], intervals[i]) <= 0, "intervals out of order");
+        }
+
+        for (int query = 0; query < 5; query++) {
+            int start = random.nextInt(MAX_TIME + 200) - 100;
+            int end = start + random.nextInt(300);
+            assertEquals(bruteForceOverlap(expected, start, end), tree.getOverlap(start, end));
+
+            List<Interval> found = tree.query(start, end);
+            long overlapping = expected.stream()
+                    .filter(interval -> Interval.overlap(start, end, interval.getStart(), interval.getEnd()) > 0)
+                    .count();
+            assertEquals(overlapping, found.size());
+        }
+    }
+
+    @Test
+    void emptyTree() {
+        MutableIntervalTree tree = new MutableIntervalTree();
+        tree.checkInvariants();
+        assertEquals(0, tree.getOverlap(0, MAX_TIME));
+        assertFalse(tree.remove(new Interval("Missing", 0, 10)));
+    }
+
+    @Test
+    void sortedInsertionsStayBalanced() {
+        // Adding intervals in order is the worst case for an unbalanced tree
+        MutableIntervalTree tree = new MutableIntervalTree();
+        for (int i = 0; i < 1000; i++) {
+            tree.add(new Interval("Interval " + i, i, i + 5));
+            tree.checkInvariants();
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(tree.remove(new Interval("Interval " + i, i, i + 5)));
+            tree.checkInvariants();
+        }
+        assertEquals(500, tree.getSize());
+    }
+
+    @Test
+    void randomAddsAndRemoves() {
+        Random random = new Random(7);
+        MutableIntervalTree tree = new MutableIntervalTree();
+        List<Interval> expected = new ArrayList<>();
+
+        for (int op = 0; op < 5000; op++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                // Few distinct times and descriptions, so there are many intervals with equal times
+                int start = random.nextInt(MAX_TIME / 10) * 10;
+                Interval interval = new Interval("Reserved " + random.nextInt(3), start,
+                        start + random.nextInt(5) * 30);
+                tree.add(interval);
+                expected.add(interval);
+            } else if (random.nextBoolean()) {
+                // Remove a copy of an interval in the tree
+                Interval interval = expected.get(random.nextInt(expected.size()));
+                Interval copy = new Interval(interval.getDescription(), interval.getStart(), interval.getEnd());
+                assertTrue(tree.remove(copy));
+                assertTrue(bruteForceRemove(expected, copy));
+            } else {
+                // Remove an interval that may not be in the tree
+                int start = random.nextInt(MAX_TIME / 10) * 10;
+                Interval interval = new Interval("Reserved " + random.nextInt(4), start,
+                        start + random.nextInt(5) * 30);
+                assertEquals(bruteForceRemove(expected, interval), tree.remove(interval));
+            }
+
+            assertSameAs(expected, tree, random);
+        }
+    }
+
+    @Test
+    void matchesIntervalTreeOfReservedTimes() {
+        ReservedTime[] reserved = {
+                new ReservedTime("Sleep", -60, 480, 24 * 60),
+                new ReservedTime("Class", 630, 75, 24 * 60),
+                new ReservedTime("Break", 0, 50, 45)
+        };
+        MutableIntervalTree tree = new MutableIntervalTree(reserved, 7200);
+        IntervalTree expected = new IntervalTree(reserved, 7200);
+        tree.checkInvariants();
+
+        Random random = new Random(3);
+        for (int query = 0; query < 1000; query++) {
+            int start = random.nextInt(7400) - 100;
+            int end = start + random.nextInt(600);
+            assertEquals(expected.getOverlap(start, end), tree.getOverlap(start, end));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.jnbrauer.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the cumulative sums of OccupancyIndex against an IntervalTree and a brute-force sum over every repetition.
+ *
+ * @author Jude Brauer
+ */
+class OccupancyIndexTest {
+    private static final int MAX_TIME = 7200;
+    private static final int DAY = 24 * 60;
+
+    // Sum the overlap with every repetition of every reserved time
+    private static int bruteForce(ReservedTime[] reservedTimes, int endTime, int start, int end) {
+        int overlap = 0;
+        for (ReservedTime reserved : reservedTimes) {
+            for (Interval interval : reserved.intervals(endTime)) {
+                overlap += Interval.overlap(start, end, interval.getStart(), interval.getEnd());
+            }
+        }
+        return overlap;
+    }
+
+    // Check the index against the tree and the brute-force sum for one query
+    private static void assertOverlap(ReservedTime[] reservedTimes, int endTime, int start, int end) {
+        OccupancyIndex index = new OccupancyIndex(reservedTimes, endTime);
+        IntervalTree tree = new IntervalTree(reservedTimes, endTime);
+
+        int expected = bruteForce(reservedTimes, endTime, start, end);
+        String query = "[" + start + ", " + end + "]";
+        assertEquals(expected, tree.getOverlap(start, end), "tree " + query);
+        assertEquals(expected, index.getOverlap(start, end), "occupancy " + query);
+    }
+
+    @Test
+    void noReservedTimes() {
+        assertOverlap(new ReservedTime[0], MAX_TIME, 0, MAX_TIME);
+        assertOverlap(new ReservedTime[0], MAX_TIME, -10, 10);
+    }
+
+    @Test
+    void intervalsAtZero() {
+        // One reserved time starts at the 0 time, one ends at it and one runs across it
+        ReservedTime[] reserved = {
+                new ReservedTime("Morning", 0, 60, DAY),
+                new ReservedTime("Night", -120, 120, DAY),
+                new ReservedTime("Sleep", -60, 480, DAY)
+        };
+        assertOverlap(reserved, MAX_TIME, 0, 1);
+        assertOverlap(reserved, MAX_TIME, -1, 0);
+        assertOverlap(reserved, MAX_TIME, -200, 30);
+        assertOverlap(reserved, MAX_TIME, 0, 0);
+    }
+
+    @Test
+    void intervalsAtMaxTime() {
+        // The last repetitions start and end exactly at MAX_TIME
+        ReservedTime[] reserved = {
+                new ReservedTime("Start", MAX_TIME, 60, DAY),
+                new ReservedTime("End", MAX_TIME - 60 - DAY, 60, DAY)
+        };
+        assertOverlap(reserved, MAX_TIME, MAX_TIME - 1, MAX_TIME);
+        assertOverlap(reserved, MAX_TIME, MAX_TIME, MAX_TIME + 1);
+        assertOverlap(reserved, MAX_TIME, MAX_TIME - 60, MAX_TIME + 60);
+        assertOverlap(reserved, MAX_TIME, MAX_TIME + 60, MAX_TIME + DAY);
+    }
+
+    @Test
+    void wrappingRepetitions() {
+        // Repetitions that cross into the next period, and ones longer than their period that overlap each other
+        ReservedTime[] reserved = {
+                new ReservedTime("Late", DAY - 30, 60, DAY),
+                new ReservedTime("Shift", 100, 90, 60)
+        };
+        for (int day = 0; day <= MAX_TIME / DAY; day++) {
+            int boundary = (day + 1) * DAY;
+            assertOverlap(reserved, MAX_TIME, boundary - 45, boundary + 45);
+            assertOverlap(reserved, MAX_TIME, boundary, boundary + 30);
+        }
+        assertOverlap(reserved, MAX_TIME, 0, MAX_TIME);
+    }
+
+    @Test
+    void randomReservedTimes() {
+        Random random = new Random(8);
+        for (int trial = 0; trial < 300; trial++) {
+            int endTime = 1 + random.nextInt(MAX_TIME);
+            ReservedTime[] reserved = new ReservedTime[random.nextInt(5)];
+            for (int i = 0; i < reserved.length; i++) {
+                int period = 1 + random.nextInt(DAY);
+                int offset = random.nextInt(endTime + period) - period;
+                int duration = random.nextInt(2 * period);
+                reserved[i] = new ReservedTime("Reserved " + i, offset, duration, period);
+            }
+
+            for (int query = 0; query < 20; query++) {
+                // Queries reach a day before the 0 time and a day past endTime, and end at 0 or endTime now and then
+                int start = random.nextInt(endTime + 2 * DAY) - DAY;
+                int end = random.nextInt(4) == 0 ? (random.nextBoolean() ? 0 : endTime)
+                        : start + random.nextInt(2 * DAY) - 100;
+                assertOverlap(reserved, endTime, start, end);
+            }
+        }
+    }
+}
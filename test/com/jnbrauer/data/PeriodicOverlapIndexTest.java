@@ -0,0 +1,110 @@
+package com.jnbrauer.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the closed-form overlaps of PeriodicOverlapIndex against an IntervalTree and a brute-force sum over every
+ * repetition.
+ *
+ * @author Jude Brauer
+ */
+class PeriodicOverlapIndexTest {
+    private static final int MAX_TIME = 7200;
+    private static final int DAY = 24 * 60;
+
+    // Sum the overlap with every repetition of every reserved time
+    private static int bruteForce(ReservedTime[] reservedTimes, int endTime, int start, int end) {
+        int overlap = 0;
+        for (ReservedTime reserved : reservedTimes) {
+            for (Interval interval : reserved.intervals(endTime)) {
+                overlap += Interval.overlap(start, end, interval.getStart(), interval.getEnd());
+            }
+        }
+        return overlap;
+    }
+
+    // Check the index against the tree and the brute-force sum for one query
+    private static void assertOverlap(ReservedTime[] reservedTimes, int endTime, int start, int end) {
+        PeriodicOverlapIndex index = new PeriodicOverlapIndex(reservedTimes, endTime);
+        IntervalTree tree = new IntervalTree(reservedTimes, endTime);
+
+        int expected = bruteForce(reservedTimes, endTime, start, end);
+        String query = "[" + start + ", " + end + "]";
+        assertEquals(expected, tree.getOverlap(start, end), "tree " + query);
+        assertEquals(expected, index.getOverlap(start, end), "periodic " + query);
+    }
+
+    @Test
+    void noReservedTimes() {
+        assertOverlap(new ReservedTime[0], MAX_TIME, 0, MAX_TIME);
+    }
+
+    @Test
+    void negativeStartOffset() {
+        // Sleep from 23:00 to 07:00, so the first repetition starts before the 0 time
+        ReservedTime[] reserved = {new ReservedTime("Sleep", -60, 480, DAY)};
+        assertOverlap(reserved, MAX_TIME, -100, 0);
+        assertOverlap(reserved, MAX_TIME, 0, 420);
+        assertOverlap(reserved, MAX_TIME, 0, MAX_TIME);
+        assertOverlap(reserved, MAX_TIME, DAY - 100, DAY + 100);
+    }
+
+    @Test
+    void reservationCrossingPeriodBoundary() {
+        // Starts 30 minutes before the end of each period and runs 60 minutes into the next
+        ReservedTime[] reserved = {new ReservedTime("Late", DAY - 30, 60, DAY)};
+        for (int day = 0; day < MAX_TIME / DAY + 1; day++) {
+            int boundary = (day + 1) * DAY;
+            assertOverlap(reserved, MAX_TIME, boundary - 45, boundary);
+            assertOverlap(reserved, MAX_TIME, boundary, boundary + 45);
+            assertOverlap(reserved, MAX_TIME, boundary - 10, boundary + 10);
+        }
+    }
+
+    @Test
+    void queriesPastMaxTime() {
+        // The last repetition starts before MAX_TIME and ends after it
+        ReservedTime[] reserved = {
+                new ReservedTime("Sleep", -60, 480, DAY),
+                new ReservedTime("Evening", MAX_TIME - 100, 300, DAY)
+        };
+        assertOverlap(reserved, MAX_TIME, MAX_TIME - 50, MAX_TIME + 50);
+        assertOverlap(reserved, MAX_TIME, MAX_TIME, MAX_TIME + DAY);
+        assertOverlap(reserved, MAX_TIME, MAX_TIME + DAY, MAX_TIME + 2 * DAY);
+        assertOverlap(reserved, MAX_TIME, -DAY, 2 * MAX_TIME);
+    }
+
+    @Test
+    void emptyAndReversedQueries() {
+        ReservedTime[] reserved = {new ReservedTime("Sleep", -60, 480, DAY)};
+        assertOverlap(reserved, MAX_TIME, 100, 100);
+        assertOverlap(reserved, MAX_TIME, 300, 100);
+    }
+
+    @Test
+    void randomReservedTimes() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 300; trial++) {
+            int endTime = 1 + random.nextInt(MAX_TIME);
+            ReservedTime[] reserved = new ReservedTime[random.nextInt(5)];
+            for (int i = 0; i < reserved.length; i++) {
+                int period = 1 + random.nextInt(DAY);
+                // Offsets before the 0 time and durations longer than the period, so repetitions overlap each other
+                int offset = random.nextInt(endTime + period) - period;
+                int duration = random.nextInt(2 * period);
+                reserved[i] = new ReservedTime("Reserved " + i, offset, duration, period);
+            }
+
+            for (int query = 0; query < 20; query++) {
+                // Queries reach a day before the 0 time and a day past endTime
+                int start = random.nextInt(endTime + 2 * DAY) - DAY;
+                int end = start + random.nextInt(2 * DAY) - 100;
+                assertOverlap(reserved, endTime, start, end);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.OverlapIndexType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that an EvaluationWorker closes the connection of a master that sends sizes or values out of range, and keeps
+ * serving other masters.
+ *
+ * @author Jude Brauer
+ */
+@Timeout(60)
+class EvaluationWorkerTest {
+    private static final int MAX_TIME = 7200;
+
+    private EvaluationWorker worker;
+
+    @BeforeEach
+    void startWorker() throws IOException {
+        worker = new EvaluationWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        worker.start();
+    }
+
+    @AfterEach
+    void stopWorker() {
+        worker.close();
+    }
+
+    // Send a problem with two tasks and one reserved time
+    private static void sendProblem(DataOutputStream out, int maxTime, int period, int overlapMethod, int indexType)
+            throws IOException {
+        out.writeInt(RemoteEvaluator.PROBLEM);
+        out.writeInt(maxTime);
+        out.writeInt(2);
+        out.writeInt(60);
+        out.writeInt(30);
+        out.writeInt(1);
+        out.writeInt(2);
+        out.writeInt(1);
+        out.writeInt(-60);
+        out.writeInt(480);
+        out.writeInt(period);
+        out.writeInt(overlapMethod);
+        out.writeInt(indexType);
+        out.flush();
+    }
+
+    // Send the given ints and check that the worker closes the connection without answering
+    private void assertClosed(int... message) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(worker.getAddress());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            for (int value : message) out.writeInt(value);
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void validBatchIsAnswered() throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(worker.getAddress());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            sendProblem(out, MAX_TIME, 24 * 60, OverlapMethod.SWEEP.ordinal(), OverlapIndexType.OCCUPANCY.ordinal());
+            out.writeInt(RemoteEvaluator.BATCH);
+            out.writeInt(7);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(30);
+            out.flush();
+
+            assertEquals(7, in.readInt());
+            assertEquals(1, in.readInt());
+            // The tasks overlap each other for 30 minutes and the reserved time for 60 and 30 minutes
+            assertEquals(30, in.readInt());
+            in.readInt();
+            assertEquals(90, in.readInt());
+        }
+    }
+
+    @Test
+    void invalidTaskCounts() throws IOException {
+        assertClosed(RemoteEvaluator.PROBLEM, MAX_TIME, -1);
+        assertClosed(RemoteEvaluator.PROBLEM, MAX_TIME, Integer.MAX_VALUE);
+        assertClosed(RemoteEvaluator.PROBLEM, -1, 2);
+    }
+
+    @Test
+    void invalidReservedTimeCounts() throws IOException {
+        assertClosed(RemoteEvaluator.PROBLEM, MAX_TIME, 0, -1);
+        assertClosed(RemoteEvaluator.PROBLEM, MAX_TIME, 0, Integer.MAX_VALUE / 2);
+    }
+
+    @Test
+    void invalidProblemValues() throws IOException {
+        for (int[] values : new int[][] {
+                {0, OverlapMethod.SWEEP.ordinal(), OverlapIndexType.PERIODIC.ordinal()},
+                {24 * 60, -1, OverlapIndexType.PERIODIC.ordinal()},
+                {24 * 60, OverlapMethod.values().length, OverlapIndexType.PERIODIC.ordinal()},
+                {24 * 60, OverlapMethod.SWEEP.ordinal(), OverlapIndexType.values().length},
+                // Billions of repetitions in an index that stores each of them
+                {1, OverlapMethod.SWEEP.ordinal(), OverlapIndexType.INTERVAL_TREE.ordinal()},
+                {1, OverlapMethod.SWEEP.ordinal(), OverlapIndexType.OCCUPANCY.ordinal()}
+        }) {
+            int maxTime = values[0] == 1 ? Integer.MAX_VALUE - 1 : MAX_TIME;
+            try (Socket socket = new Socket()) {
+                socket.connect(worker.getAddress());
+                sendProblem(new DataOutputStream(socket.getOutputStream()), maxTime, values[0], values[1], values[2]);
+                assertEquals(-1, socket.getInputStream().read());
+            }
+        }
+    }
+
+    @Test
+    void invalidBatchSizes() throws IOException {
+        for (int count : new int[] {-1, Integer.MAX_VALUE / 2, Integer.MAX_VALUE}) {
+            try (Socket socket = new Socket()) {
+                socket.connect(worker.getAddress());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                sendProblem(out, MAX_TIME, 24 * 60, OverlapMethod.SWEEP.ordinal(),
+                        OverlapIndexType.PERIODIC.ordinal());
+                out.writeInt(RemoteEvaluator.BATCH);
+                out.writeInt(0);
+                out.writeInt(count);
+                out.flush();
+                assertEquals(-1, socket.getInputStream().read());
+            }
+        }
+
+        // The worker still answers other masters
+        validBatchIsAnswered();
+    }
+}
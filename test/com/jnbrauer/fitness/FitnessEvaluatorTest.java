@@ -0,0 +1,131 @@
+package com.jnbrauer.fitness;
+
+import com.jnbrauer.data.OverlapIndex;
+import com.jnbrauer.data.OverlapIndexType;
+import com.jnbrauer.data.ReservedTime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that updating a breakdown after moving tasks always gives the same result as evaluating from scratch.
+ *
+ * @author Jude Brauer
+ */
+class FitnessEvaluatorTest {
+    private static final int MAX_TIME = 7200;
+    private static final ReservedTime[] RESERVED_TIMES = {
+            new ReservedTime("Sleep", -60, 480, 24 * 60),
+            new ReservedTime("Class", 630, 75, 24 * 60),
+            new ReservedTime("Meeting", 2000, 45, 3 * 24 * 60)
+    };
+
+    // Check every field of two breakdowns
+    static void assertSameBreakdown(FitnessBreakdown expected, FitnessBreakdown actual, int nTasks) {
+        assertEquals(expected.getTaskOverlap(), actual.getTaskOverlap(), "task overlap");
+        assertEquals(expected.getPriorityInversions(), actual.getPriorityInversions(), "priority inversions");
+        assertEquals(expected.getReservedOverlap(), actual.getReservedOverlap(), "reserved overlap");
+        for (int i = 0; i < nTasks; i++) {
+            assertEquals(expected.getTaskReservedOverlap(i), actual.getTaskReservedOverlap(i), "reserved overlap " + i);
+        }
+    }
+
+    // Create an evaluator for random tasks with few distinct priorities
+    private static FitnessEvaluator evaluator(Random random, int nTasks, OverlapMethod method, OverlapIndexType type) {
+        int[] durations = new int[nTasks];
+        int[] priorities = new int[nTasks];
+        for (int i = 0; i < nTasks; i++) {
+            durations[i] = random.nextInt(10) == 0 ? 0 : 15 + random.nextInt(300);
+            priorities[i] = random.nextInt(8);
+        }
+        OverlapIndex index = type.build(RESERVED_TIMES, MAX_TIME);
+        return new FitnessEvaluator(durations, priorities, index, method);
+    }
+
+    @Test
+    void singleTaskMoves() {
+        Random random = new Random(3);
+        for (OverlapMethod method : OverlapMethod.values()) {
+            for (OverlapIndexType type : OverlapIndexType.values()) {
+                int nTasks = 40;
+                FitnessEvaluator evaluator = evaluator(random, nTasks, method, type);
+                int[] schedule = new int[nTasks];
+                for (int i = 0; i < nTasks; i++) schedule[i] = random.nextInt(MAX_TIME);
+
+                FitnessBreakdown breakdown = new FitnessBreakdown(nTasks);
+                FitnessBreakdown updated = new FitnessBreakdown(nTasks);
+                FitnessBreakdown expected = new FitnessBreakdown(nTasks);
+                evaluator.evaluate(schedule, breakdown);
+
+                // Each move is applied to the previous update, so any error would add up
+                for (int move = 0; move < 1000; move++) {
+                    int[] moved = schedule.clone();
+                    int task = random.nextInt(nTasks);
+                    // Small moves often keep the same neighbours, large ones cross reserved times
+                    int distance = random.nextBoolean() ? random.nextInt(61) - 30 : random.nextInt(MAX_TIME);
+                    moved[task] = Math.max(0, Math.min(MAX_TIME, moved[task] + distance));
+
+                    evaluator.update(moved, 0, schedule, 0, breakdown, updated);
+                    evaluator.evaluate(moved, expected);
+                    assertSameBreakdown(expected, updated, nTasks);
+
+                    schedule = moved;
+                    breakdown.copyFrom(updated);
+                }
+            }
+        }
+    }
+
+    @Test
+    void multiTaskMovesInFlatArrays() {
+        Random random = new Random(4);
+        int nTasks = 64;
+        int size = 8;
+        FitnessEvaluator evaluator = evaluator(random, nTasks, OverlapMethod.SWEEP, OverlapIndexType.PERIODIC);
+
+        int[] parents = new int[size * nTasks];
+        for (int i = 0; i < parents.length; i++) parents[i] = random.nextInt(MAX_TIME);
+        FitnessBreakdown[] parentBreakdowns = new FitnessBreakdown[size];
+        for (int p = 0; p < size; p++) {
+            parentBreakdowns[p] = new FitnessBreakdown(nTasks);
+            evaluator.evaluate(parents, p * nTasks, parentBreakdowns[p]);
+        }
+
+        int[] children = new int[size * nTasks];
+        FitnessBreakdown updated = new FitnessBreakdown(nTasks);
+        FitnessBreakdown expected = new FitnessBreakdown(nTasks);
+        for (int trial = 0; trial < 500; trial++) {
+            int parent = random.nextInt(size);
+            int child = random.nextInt(size);
+            System.arraycopy(parents, parent * nTasks, children, child * nTasks, nTasks);
+
+            // From no changes up to more than enough to fall back to a full evaluation
+            int nChanges = random.nextInt(nTasks / 2);
+            for (int c = 0; c < nChanges; c++) {
+                children[child * nTasks + random.nextInt(nTasks)] = random.nextInt(MAX_TIME);
+            }
+
+            evaluator.update(children, child * nTasks, parents, parent * nTasks, parentBreakdowns[parent], updated);
+            evaluator.evaluate(children, child * nTasks, expected);
+            assertSameBreakdown(expected, updated, nTasks);
+        }
+    }
+
+    @Test
+    void copiesGiveTheSameResults() {
+        Random random = new Random(5);
+        int nTasks = 30;
+        FitnessEvaluator evaluator = evaluator(random, nTasks, OverlapMethod.PAIRWISE, OverlapIndexType.OCCUPANCY);
+        FitnessEvaluator copy = evaluator.copy();
+
+        int[] schedule = new int[nTasks];
+        for (int i = 0; i < nTasks; i++) schedule[i] = random.nextInt(MAX_TIME);
+        FitnessBreakdown expected = new FitnessBreakdown(nTasks);
+        FitnessBreakdown actual = new FitnessBreakdown(nTasks);
+        evaluator.evaluate(schedule, expected);
+        copy.evaluate(schedule, actual);
+        assertSameBreakdown(expected, actual, nTasks);
+    }
+}
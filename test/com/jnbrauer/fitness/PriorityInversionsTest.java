@@ -0,0 +1,79 @@
+package com.jnbrauer.fitness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the Fenwick tree count of priority inversions against the pairwise reference.
+ *
+ * @author Jude Brauer
+ */
+class PriorityInversionsTest {
+    // Count the inversions of a schedule with both methods and check that they agree
+    private static int inversions(int[] starts, int[] priorities) {
+        int expected = PriorityInversions.pairwise(starts, priorities, starts.length);
+        assertEquals(expected, new PriorityInversions(priorities).count(starts));
+        return expected;
+    }
+
+    @Test
+    void emptySchedule() {
+        assertEquals(0, inversions(new int[0], new int[0]));
+    }
+
+    @Test
+    void inOrder() {
+        assertEquals(0, inversions(new int[] {0, 60, 120}, new int[] {1, 2, 3}));
+    }
+
+    @Test
+    void reversed() {
+        // Pairs (3, 2), (3, 1) and (2, 1)
+        assertEquals(1 + 2 + 1, inversions(new int[] {0, 60, 120}, new int[] {3, 2, 1}));
+    }
+
+    @Test
+    void equalPriorities() {
+        assertEquals(0, inversions(new int[] {120, 0, 60}, new int[] {4, 4, 4}));
+        assertEquals(2 + 2, inversions(new int[] {0, 60, 120}, new int[] {3, 3, 1}));
+    }
+
+    @Test
+    void equalStartTimes() {
+        // Tasks starting at the same time are not inverted with each other
+        assertEquals(0, inversions(new int[] {30, 30, 30}, new int[] {5, 1, 3}));
+        assertEquals(4 + 2, inversions(new int[] {0, 30, 30}, new int[] {5, 1, 3}));
+    }
+
+    @Test
+    void copySharesNoScratchSpace() {
+        int[] priorities = {3, 1, 2, 5};
+        PriorityInversions counter = new PriorityInversions(priorities);
+        PriorityInversions copy = counter.copy();
+        int[] starts = {40, 10, 30, 0};
+
+        assertEquals(counter.count(starts), copy.count(starts));
+        assertEquals(PriorityInversions.pairwise(starts, priorities, 4), copy.count(starts));
+    }
+
+    @Test
+    void randomSchedules() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = random.nextInt(80);
+            // Few distinct values so that equal priorities and start times are common
+            int nPriorities = 1 + random.nextInt(10);
+            int horizon = 1 + random.nextInt(50);
+            int[] starts = new int[n];
+            int[] priorities = new int[n];
+            for (int i = 0; i < n; i++) {
+                starts[i] = random.nextInt(horizon) - 10;
+                priorities[i] = random.nextInt(nPriorities) - 3;
+            }
+            inversions(starts, priorities);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.jnbrauer.fitness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the sweep-line task overlap against the pairwise reference.
+ *
+ * @author Jude Brauer
+ */
+class TaskOverlapTest {
+    // Calculate the overlap of a schedule with every method and check that they agree
+    private static int overlap(int[] starts, int[] ends) {
+        int n = starts.length;
+        int[] sortedStarts = starts.clone();
+        int[] sortedEnds = ends.clone();
+        Arrays.sort(sortedStarts);
+        Arrays.sort(sortedEnds);
+
+        int expected = TaskOverlap.pairwise(starts, ends, n);
+        assertEquals(expected, TaskOverlap.sweep(sortedStarts, sortedEnds, n));
+        assertEquals(expected, TaskOverlap.total(OverlapMethod.SWEEP, starts, ends, n));
+        assertEquals(expected, TaskOverlap.total(OverlapMethod.PAIRWISE, starts, ends, n));
+        return expected;
+    }
+
+    @Test
+    void emptySchedule() {
+        assertEquals(0, overlap(new int[0], new int[0]));
+    }
+
+    @Test
+    void singleTask() {
+        assertEquals(0, overlap(new int[] {10}, new int[] {70}));
+    }
+
+    @Test
+    void identicalIntervals() {
+        // Three identical tasks form three pairs, each overlapping for the whole hour
+        assertEquals(3 * 60, overlap(new int[] {10, 10, 10}, new int[] {70, 70, 70}));
+    }
+
+    @Test
+    void touchingIntervals() {
+        assertEquals(0, overlap(new int[] {0, 60, 120}, new int[] {60, 120, 180}));
+    }
+
+    @Test
+    void nestedIntervals() {
+        assertEquals(30 + 10 + 10, overlap(new int[] {0, 10, 15}, new int[] {100, 40, 25}));
+    }
+
+    @Test
+    void zeroDurationTasks() {
+        assertEquals(0, overlap(new int[] {30, 30, 0}, new int[] {30, 30, 60}));
+    }
+
+    @Test
+    void randomSchedules() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = random.nextInt(60);
+            int horizon = 1 + random.nextInt(2000);
+            int[] starts = new int[n];
+            int[] ends = new int[n];
+            for (int i = 0; i < n; i++) {
+                starts[i] = random.nextInt(horizon) - horizon / 4;
+                ends[i] = starts[i] + random.nextInt(300);
+            }
+            overlap(starts, ends);
+        }
+    }
+}
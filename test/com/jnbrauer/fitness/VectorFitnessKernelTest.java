@@ -0,0 +1,102 @@
+package com.jnbrauer.fitness;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Checks the Vector API fitness kernel against the scalar kernel. Skipped when the JVM was started without the
+ * jdk.incubator.vector module.
+ *
+ * @author Jude Brauer
+ */
+class VectorFitnessKernelTest {
+    private static final FitnessKernel VECTOR = FitnessKernel.vector();
+    private static final FitnessKernel SCALAR = FitnessKernel.SCALAR;
+
+    // Lengths from empty up to several full vectors of the widest species (16 ints), so most leave a remainder
+    private static final int MAX_LENGTH = 70;
+
+    @BeforeEach
+    void requireVectorModule() {
+        assumeFalse(VECTOR == SCALAR, "jdk.incubator.vector is not available");
+    }
+
+    @Test
+    void pairwiseOverlap() {
+        Random random = new Random(6);
+        for (int n = 0; n <= MAX_LENGTH; n++) {
+            for (int trial = 0; trial < 20; trial++) {
+                // Values after the first n must be ignored
+                int[] starts = new int[n + random.nextInt(8)];
+                int[] ends = new int[starts.length];
+                int horizon = 1 + random.nextInt(2000);
+                for (int i = 0; i < starts.length; i++) {
+                    starts[i] = random.nextInt(horizon) - horizon / 4;
+                    ends[i] = starts[i] + random.nextInt(300);
+                }
+
+                assertEquals(SCALAR.pairwiseOverlap(starts, ends, n), VECTOR.pairwiseOverlap(starts, ends, n),
+                        "overlap of " + n + " tasks");
+            }
+        }
+    }
+
+    @Test
+    void pairwiseOverlapWrapsAround() {
+        // Overlaps this long overflow the total, which must wrap around the same way in both kernels
+        int n = 37;
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = i;
+            ends[i] = Integer.MAX_VALUE / 2 + i;
+        }
+
+        assertEquals(SCALAR.pairwiseOverlap(starts, ends, n), VECTOR.pairwiseOverlap(starts, ends, n));
+    }
+
+    @Test
+    void rowDelta() {
+        Random random = new Random(7);
+        for (int n = 1; n <= MAX_LENGTH; n++) {
+            int[] durations = new int[n];
+            int[] priorities = new int[n];
+            for (int i = 0; i < n; i++) {
+                durations[i] = random.nextInt(10) == 0 ? 0 : 15 + random.nextInt(300);
+                priorities[i] = random.nextInt(5);
+            }
+
+            for (int trial = 0; trial < 10; trial++) {
+                // Both schedules sit at an offset inside larger arrays
+                int offset = random.nextInt(5);
+                int baseOffset = random.nextInt(5);
+                int[] genes = new int[offset + n + random.nextInt(5)];
+                int[] base = new int[baseOffset + n + random.nextInt(5)];
+                boolean[] changed = new boolean[n];
+                for (int i = 0; i < genes.length; i++) genes[i] = random.nextInt(3000);
+                for (int i = 0; i < base.length; i++) base[i] = random.nextInt(3000);
+
+                // From a few changed tasks up to all of them, with the others copied from the old schedule
+                int changeRate = 1 + random.nextInt(4);
+                for (int i = 0; i < n; i++) {
+                    changed[i] = random.nextInt(changeRate) == 0;
+                    if (!changed[i]) genes[offset + i] = base[baseOffset + i];
+                }
+
+                for (int k = 0; k < n; k++) {
+                    int[] expected = {random.nextInt(1000), random.nextInt(1000)};
+                    int[] actual = expected.clone();
+                    SCALAR.rowDelta(k, genes, offset, base, baseOffset, durations, priorities, changed, n, expected);
+                    VECTOR.rowDelta(k, genes, offset, base, baseOffset, durations, priorities, changed, n, actual);
+                    assertArrayEquals(expected, actual, "row " + k + " of " + n + " tasks");
+                }
+            }
+        }
+    }
+}
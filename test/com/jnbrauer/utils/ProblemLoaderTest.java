@@ -0,0 +1,206 @@
+package com.jnbrauer.utils;
+
+import com.jnbrauer.data.ReservedTimeColumns;
+import com.jnbrauer.data.TaskColumns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that ProblemLoader reads CSV and JSON tasks and reserved times, and rejects malformed input with an
+ * IOException.
+ *
+ * @author Jude Brauer
+ */
+class ProblemLoaderTest {
+    @TempDir
+    Path directory;
+
+    // Read tasks from CSV text
+    private static TaskColumns tasksCSV(String text) throws IOException {
+        return ProblemLoader.readTasksCSV(new StringReader(text));
+    }
+
+    // Read tasks from JSON text
+    private static TaskColumns tasksJSON(String text) throws IOException {
+        return ProblemLoader.readTasksJSON(new StringReader(text));
+    }
+
+    // Check the columns of a set of tasks
+    private static void assertTasks(TaskColumns tasks, String[] titles, int[] priorities, int[] durations) {
+        assertArrayEquals(titles, tasks.copyTitles());
+        assertArrayEquals(priorities, tasks.copyPriorities());
+        assertArrayEquals(durations, tasks.copyDurations());
+    }
+
+    // CSV /////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    void csvQuotedFields() throws IOException {
+        TaskColumns tasks = tasksCSV("title,priority,duration\n"
+                + "\"Report, part 1\",3,180\n"
+                + "\"Read \"\"Dune\"\"\",1,60\n"
+                + "\"Two\nlines\",2,30\n"
+                + "\"\",0,0\n");
+        assertTasks(tasks, new String[] {"Report, part 1", "Read \"Dune\"", "Two\nlines", ""},
+                new int[] {3, 1, 2, 0}, new int[] {180, 60, 30, 0});
+    }
+
+    @Test
+    void csvColumnsInAnyOrderWithUnknownColumns() throws IOException {
+        TaskColumns tasks = tasksCSV("notes,duration,title,colour,priority\r\n"
+                + "ignored,45,Email,red,2\r\n"
+                + "\r\n"
+                + "\"also, ignored\",90, Gym ,blue, 4 \r\n");
+        // Titles are kept as written, numbers may be padded with spaces
+        assertTasks(tasks, new String[] {"Email", " Gym "}, new int[] {2, 4}, new int[] {45, 90});
+    }
+
+    @Test
+    void csvReservedTimes() throws IOException {
+        ReservedTimeColumns reservedTimes = ProblemLoader.readReservedTimesCSV(new StringReader(
+                "period,title,duration,startOffset\n1440,Sleep,480,-60\n10080,\"Church, Sunday\",90,600\n"));
+        assertEquals(2, reservedTimes.size());
+        assertEquals("Church, Sunday", reservedTimes.getTitle(1));
+        assertEquals(-60, reservedTimes.getStartOffset(0));
+        assertEquals(10080, reservedTimes.getPeriod(1));
+    }
+
+    @Test
+    void csvHeaderOnly() throws IOException {
+        assertEquals(0, tasksCSV("title,priority,duration\n").size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "title,priority\nEmail,2\n",
+            "title,priority,duration\n\"Email,2,45\n",
+            "title,priority,duration\nEmail,2\n",
+            "title,priority,duration\nEmail,2,45,extra\n",
+            "title,priority,duration\nEmail,two,45\n",
+            "title,priority,duration\nEmail,2,\n",
+            "title,priority,duration\nEmail,2,-5\n"
+    })
+    void csvMalformedTasks(String text) {
+        assertThrows(IOException.class, () -> tasksCSV(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "title,startOffset,duration\nSleep,-60,480\n",
+            "title,startOffset,duration,period\nSleep,-60,480,0\n",
+            "title,startOffset,duration,period\nSleep,-60,480,day\n"
+    })
+    void csvMalformedReservedTimes(String text) {
+        assertThrows(IOException.class, () -> ProblemLoader.readReservedTimesCSV(new StringReader(text)));
+    }
+
+    // JSON ////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    void jsonEscapes() throws IOException {
+        TaskColumns tasks = tasksJSON("[{\"title\": \"Caf\\u00e9 \\\"run\\\"\", \"priority\": 1, \"duration\": 30},"
+                + "{\"title\": \"Tab\\there\\\\\\/\", \"priority\": 2, \"duration\": 40},"
+                + "{\"title\": \"\\u0041\\u00DF\\n\", \"priority\": \"3\", \"duration\": 50}]");
+        assertTasks(tasks, new String[] {"Café \"run\"", "Tab\there\\/", "Aß\n"},
+                new int[] {1, 2, 3}, new int[] {30, 40, 50});
+    }
+
+    @Test
+    void jsonKeysInAnyOrderWithUnknownKeys() throws IOException {
+        TaskColumns tasks = tasksJSON("[\n"
+                + "  {\"duration\": 45, \"tags\": [\"a\", {\"b\": [1, 2]}], \"title\": \"Email\", \"priority\": 2},\n"
+                + "  {\"done\": false, \"priority\": 4, \"note\": null, \"title\": \"Gym\", \"extra\": {\"x\": \"}\"},"
+                + " \"duration\": 90}\n"
+                + "]\n");
+        assertTasks(tasks, new String[] {"Email", "Gym"}, new int[] {2, 4}, new int[] {45, 90});
+    }
+
+    @Test
+    void jsonReservedTimes() throws IOException {
+        ReservedTimeColumns reservedTimes = ProblemLoader.readReservedTimesJSON(new StringReader(
+                "[{\"title\": \"Sleep\", \"startOffset\": -60, \"duration\": 480, \"period\": 1440}]"));
+        assertEquals(1, reservedTimes.size());
+        assertEquals(-60, reservedTimes.getStartOffset(0));
+        assertEquals(480, reservedTimes.getDuration(0));
+    }
+
+    @Test
+    void jsonEmptyArray() throws IOException {
+        assertEquals(0, tasksJSON(" [ ] ").size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "{}",
+            "[{\"title\": \"Email\", \"priority\": 2}]",
+            "[{\"title\": \"Email\", \"priority\": 2, \"duration\": 45}",
+            "[{\"title\": \"Email\", \"priority\": 2, \"duration\": 45}] extra",
+            "[{\"title\": \"Email\" \"priority\": 2, \"duration\": 45}]",
+            "[{\"title\": \"Email, \"priority\": 2, \"duration\": 45}]",
+            "[{\"title\": \"\\q\", \"priority\": 2, \"duration\": 45}]",
+            "[{\"title\": \"\\u12G4\", \"priority\": 2, \"duration\": 45}]",
+            "[{\"title\": \"\\u12",
+            "[{\"title\": [\"Email\"], \"priority\": 2, \"duration\": 45}]",
+            "[{\"title\": \"Email\", \"priority\": 2.5, \"duration\": 45}]",
+            "[{\"title\": \"Email\", \"priority\": 2, \"duration\": -45}]",
+            "[{\"title\": \"Email\", \"priority\": 2, \"duration\": 45, \"tags\": [1, 2}]"
+    })
+    void jsonMalformedTasks(String text) {
+        assertThrows(IOException.class, () -> tasksJSON(text));
+    }
+
+    // Files ///////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    void filesByExtension() throws IOException {
+        String csv = "title,priority,duration\nEmail,2,45\n";
+        String json = "[{\"title\": \"Email\", \"priority\": 2, \"duration\": 45}]";
+
+        Files.writeString(directory.resolve("tasks.csv"), csv);
+        Files.writeString(directory.resolve("tasks.json"), json);
+        gzip(directory.resolve("tasks.csv.gz"), csv);
+        gzip(directory.resolve("tasks.json.gz"), json);
+
+        for (String name : new String[] {"tasks.csv", "tasks.json", "tasks.csv.gz", "tasks.json.gz"}) {
+            TaskColumns tasks = ProblemLoader.readTasks(directory.resolve(name).toString());
+            assertTasks(tasks, new String[] {"Email"}, new int[] {2}, new int[] {45});
+        }
+    }
+
+    @Test
+    void unreadableFiles() throws IOException {
+        assertThrows(IOException.class, () -> ProblemLoader.readTasks(directory.resolve("missing.csv").toString()));
+
+        // Not gzip data
+        Files.writeString(directory.resolve("plain.csv.gz"), "title,priority,duration\n");
+        assertThrows(IOException.class, () -> ProblemLoader.readTasks(directory.resolve("plain.csv.gz").toString()));
+    }
+
+    @Test
+    void columnsRejectNegativeDurations() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskColumns().add("Email", 2, -1));
+    }
+
+    // Write text to a gzip file
+    private static void gzip(Path path, String text) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}